@@ -0,0 +1,31 @@
+package pl.domzal.junit.docker.rule;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.spotify.docker.client.messages.ContainerConfig;
+
+/**
+ * Hash of effective container configuration (including host configuration)
+ * allowing to recognize containers (and images) created from the same configuration.
+ */
+class ContainerConfigHash {
+
+    private ContainerConfigHash() {}
+
+    /**
+     * SHA-256 (hex) of given configuration.
+     *
+     * @param containerConfig Container configuration.
+     * @param additionalState Additional values hash should depend on (like base image id).
+     */
+    static String of(ContainerConfig containerConfig, String... additionalState) {
+        Hasher hasher = Hashing.sha256().newHasher().putString(containerConfig.toString(), StandardCharsets.UTF_8);
+        for (String value : additionalState) {
+            hasher.putString(value, StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+}
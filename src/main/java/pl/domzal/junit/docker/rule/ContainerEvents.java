@@ -0,0 +1,278 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.DockerClient.EventsParam;
+import com.spotify.docker.client.EventStream;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.Event;
+
+/**
+ * State of containers created by rules, tracked with single docker events subscription
+ * per docker client (filtered by {@link #OWNER_LABEL} all rule containers are labeled with).
+ * <p>
+ * State is known only for containers registered with {@link #track(String)} while subscription
+ * was active - for any other container (or after subscription was broken) queries return
+ * <code>null</code> and caller should fall back to {@link DockerClient#inspectContainer(String)}.
+ */
+class ContainerEvents {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerEvents.class);
+
+    static final String OWNER_LABEL = "pl.domzal.junit.docker.rule.owner";
+    static final String OWNER_LABEL_VALUE = "junit-docker-rule";
+
+    private static final String HEALTH_STATUS_PREFIX = "health_status: ";
+
+    private static final Map<DockerClient, ContainerEvents> instances = new HashMap<>();
+
+    private static final ThreadFactory readerThreadFactory = new ThreadFactoryBuilder()//
+            .setNameFormat("docker-events-%d")//
+            .setDaemon(true)//
+            .build();
+
+    private final DockerClient dockerClient;
+
+    private final Map<String, ContainerStatus> statuses = new HashMap<>();
+    private final Map<String, List<Runnable>> listeners = new HashMap<>();
+    private Iterator<Event> eventStream;
+
+    ContainerEvents(DockerClient dockerClient) {
+        this.dockerClient = dockerClient;
+    }
+
+    /**
+     * Tracker of containers created with given client.
+     */
+    static ContainerEvents of(DockerClient dockerClient) {
+        synchronized (instances) {
+            ContainerEvents events = instances.get(dockerClient);
+            if (events == null) {
+                events = new ContainerEvents(dockerClient);
+                instances.put(dockerClient, events);
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Make sure events subscription is active. Must be called (and return) before tracked container is created.
+     *
+     * @return <code>false</code> when docker daemon refused subscription (containers will not be tracked).
+     */
+    synchronized boolean subscribe() throws InterruptedException {
+        if (eventStream != null) {
+            return true;
+        }
+        EventStream stream;
+        try {
+            stream = dockerClient.events(EventsParam.type(Event.Type.CONTAINER), EventsParam.label(OWNER_LABEL, OWNER_LABEL_VALUE));
+        } catch (DockerException e) {
+            log.warn("unable to subscribe to docker events, container state will be inspected", e);
+            return false;
+        }
+        startReading(stream);
+        log.debug("subscribed to docker events");
+        return true;
+    }
+
+    /**
+     * Read events of new subscription (on separate thread) till they end.
+     */
+    synchronized void startReading(final Iterator<Event> stream) {
+        eventStream = stream;
+        readerThreadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                read(stream);
+            }
+        }).start();
+    }
+
+    private void read(Iterator<Event> stream) {
+        try {
+            while (stream.hasNext()) {
+                onEvent(stream.next());
+            }
+        } catch (RuntimeException e) {
+            log.debug("docker events subscription broken", e);
+        } finally {
+            unsubscribed(stream);
+        }
+    }
+
+    private void unsubscribed(Iterator<Event> stream) {
+        List<Runnable> toNotify = new ArrayList<>();
+        synchronized (this) {
+            if (eventStream == stream) {
+                eventStream = null;
+                // events might be lost before next subscription - known state is no longer reliable
+                statuses.clear();
+                notifyAll();
+                for (List<Runnable> containerListeners : listeners.values()) {
+                    toNotify.addAll(containerListeners);
+                }
+            }
+        }
+        synchronized (instances) {
+            if (instances.get(dockerClient) == this && isUnsubscribed()) {
+                instances.remove(dockerClient);
+            }
+        }
+        notifyListeners(toNotify);
+    }
+
+    private synchronized boolean isUnsubscribed() {
+        return eventStream == null;
+    }
+
+    void onEvent(Event event) {
+        if (event.actor() == null) {
+            return;
+        }
+        String containerId = event.actor().id();
+        List<Runnable> toNotify;
+        synchronized (this) {
+            ContainerStatus status = statuses.get(containerId);
+            if (status == null) {
+                return;
+            }
+            String action = StringUtils.defaultString(event.action());
+            log.trace("{} event: {}", StringUtils.left(containerId, 12), action);
+            if ("start".equals(action)) {
+                status.running = true;
+                status.exitCode = null;
+            } else if ("die".equals(action)) {
+                status.running = false;
+                String exitCode = event.actor().attributes() != null ? event.actor().attributes().get("exitCode") : null;
+                status.exitCode = StringUtils.isNumeric(exitCode) ? Integer.valueOf(exitCode) : Integer.valueOf(-1);
+            } else if ("oom".equals(action)) {
+                status.oomKilled = true;
+            } else if (action.startsWith(HEALTH_STATUS_PREFIX)) {
+                status.health = action.substring(HEALTH_STATUS_PREFIX.length()).trim();
+            } else if ("destroy".equals(action)) {
+                statuses.remove(containerId);
+            }
+            notifyAll();
+            List<Runnable> containerListeners = listeners.get(containerId);
+            toNotify = containerListeners != null ? new ArrayList<>(containerListeners) : null;
+        }
+        notifyListeners(toNotify);
+    }
+
+    /**
+     * Run listeners - outside of lock, so listener may query state (or block) without holding up event delivery to other threads.
+     */
+    private static void notifyListeners(List<Runnable> containerListeners) {
+        if (containerListeners != null) {
+            for (Runnable listener : containerListeners) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Register listener run on every state change of given container.
+     */
+    synchronized void addListener(String containerId, Runnable listener) {
+        List<Runnable> containerListeners = listeners.get(containerId);
+        if (containerListeners == null) {
+            containerListeners = new ArrayList<>();
+            listeners.put(containerId, containerListeners);
+        }
+        containerListeners.add(listener);
+    }
+
+    synchronized void removeListener(String containerId, Runnable listener) {
+        List<Runnable> containerListeners = listeners.get(containerId);
+        if (containerListeners != null) {
+            containerListeners.remove(listener);
+            if (containerListeners.isEmpty()) {
+                listeners.remove(containerId);
+            }
+        }
+    }
+
+    /**
+     * Start tracking state of container. Container must be created after {@link #subscribe()} returned
+     * and not yet started.
+     */
+    synchronized void track(String containerId) {
+        if (eventStream != null) {
+            statuses.put(containerId, new ContainerStatus());
+        }
+    }
+
+    /**
+     * Whether container state is tracked (its changes are notified to listeners).
+     */
+    synchronized boolean isTracked(String containerId) {
+        return statuses.containsKey(containerId);
+    }
+
+    /**
+     * Whether container is running (<code>null</code> if container state is not known - also when
+     * container is tracked but neither its 'start' nor 'die' event has arrived yet).
+     */
+    synchronized Boolean isRunning(String containerId) {
+        ContainerStatus status = statuses.get(containerId);
+        return status != null ? status.running : null;
+    }
+
+    /**
+     * Exit code of container (<code>null</code> if container is still running or its state is not known).
+     */
+    synchronized Integer exitCode(String containerId) {
+        ContainerStatus status = statuses.get(containerId);
+        return status != null ? status.exitCode : null;
+    }
+
+    /**
+     * Whether container was killed by OOM killer (<code>null</code> if container state is not known).
+     */
+    synchronized Boolean isOomKilled(String containerId) {
+        ContainerStatus status = statuses.get(containerId);
+        return status != null ? status.oomKilled : null;
+    }
+
+    /**
+     * Last reported container health status (<code>null</code> if not known or not reported yet).
+     */
+    synchronized String health(String containerId) {
+        ContainerStatus status = statuses.get(containerId);
+        return status != null ? status.health : null;
+    }
+
+    /**
+     * Block until tracked container exits.
+     *
+     * @return Container exit code or <code>null</code> if container state is not (or is no longer) known.
+     */
+    synchronized Integer awaitExit(String containerId) throws InterruptedException {
+        ContainerStatus status;
+        while ((status = statuses.get(containerId)) != null && status.exitCode == null) {
+            wait();
+        }
+        return status != null ? status.exitCode : null;
+    }
+
+    private static class ContainerStatus {
+        /** Not known until first 'start' or 'die' event. */
+        private Boolean running;
+        private Integer exitCode;
+        private boolean oomKilled = false;
+        private String health;
+    }
+
+}
@@ -0,0 +1,166 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.DockerRequestException;
+import com.spotify.docker.client.messages.ContainerState;
+
+/**
+ * Stops (or kills) and removes containers according to {@link StopOption}s.
+ * <p>
+ * Asynchronous teardowns run on JVM-wide pool of {@value #PARALLELISM_PROPERTY} threads
+ * (default {@value #DEFAULT_PARALLELISM}). Number of teardowns waiting for execution is limited
+ * with {@value #MAX_PENDING_PROPERTY} (default {@value #DEFAULT_MAX_PENDING}) - when limit is
+ * reached teardown is executed on caller thread. Pending teardowns are drained by JVM shutdown hook,
+ * teardowns requested after reaper was shut down are executed on caller thread too.
+ */
+class ContainerReaper {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerReaper.class);
+
+    static final String PARALLELISM_PROPERTY = "junit.docker.rule.teardownParallelism";
+    static final int DEFAULT_PARALLELISM = 4;
+    static final String MAX_PENDING_PROPERTY = "junit.docker.rule.maxPendingTeardowns";
+    static final int DEFAULT_MAX_PENDING = 32;
+
+    static final int STOP_TIMEOUT = 5;
+    private static final int DRAIN_TIMEOUT_SECONDS = 60;
+    private static final int HTTP_CONFLICT = 409;
+
+    private static final ContainerReaper INSTANCE = new ContainerReaper(//
+            Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM)),//
+            Math.max(1, Integer.getInteger(MAX_PENDING_PROPERTY, DEFAULT_MAX_PENDING)));
+
+    private final ThreadPoolExecutor executor;
+
+    ContainerReaper(int parallelism, int maxPending) {
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.SECONDS,//
+                new ArrayBlockingQueue<Runnable>(maxPending),//
+                new ThreadFactoryBuilder()//
+                        .setNameFormat("container-reaper-%d")//
+                        .setDaemon(true)//
+                        .build(),//
+                new RunOnCallerThread());
+        Runtime.getRuntime().addShutdownHook(new Thread("container-reaper-drain") {
+            @Override
+            public void run() {
+                drain(DRAIN_TIMEOUT_SECONDS);
+            }
+        });
+    }
+
+    static ContainerReaper instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tear container down in background. Caller hands over its reference of docker
+     * client - it is released with {@link DockerClientRegistry#release(DockerClient)}
+     * when teardown is done.
+     */
+    void teardownAsync(final DockerClient dockerClient, final String containerId, final String containerShortId, final StopOption.StopOptionSet stopOptions) {
+        log.debug("{} scheduled for teardown", containerShortId);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    teardown(dockerClient, containerId, containerShortId, stopOptions);
+                } catch (DockerException | RuntimeException e) {
+                    log.warn("{} teardown failed", containerShortId, e);
+                } catch (InterruptedException e) {
+                    log.warn("{} teardown interrupted", containerShortId);
+                    Thread.currentThread().interrupt();
+                } finally {
+                    DockerClientRegistry.instance().release(dockerClient);
+                }
+            }
+        });
+    }
+
+    /**
+     * Number of teardowns scheduled or in progress.
+     */
+    int pending() {
+        return executor.getQueue().size() + executor.getActiveCount();
+    }
+
+    /**
+     * Wait (no longer than given time) for all scheduled teardowns.
+     */
+    boolean drain(int timeoutSeconds) {
+        if (pending() > 0) {
+            log.info("waiting for {} container teardown(s)", pending());
+        }
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.warn("interrupted while waiting for container teardowns");
+            return false;
+        }
+    }
+
+    /**
+     * Unlike {@link ThreadPoolExecutor.CallerRunsPolicy} runs rejected teardown also when executor
+     * is already shut down (by drain in shutdown hook) - so container is never left behind silently.
+     */
+    private static class RunOnCallerThread implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable teardown, ThreadPoolExecutor executor) {
+            teardown.run();
+        }
+    }
+
+    /**
+     * Stop (or kill) and remove container on caller thread. Known container state is only
+     * a hint - when it turns out to be stale, container is removed forcibly.
+     */
+    static void teardown(DockerClient dockerClient, String containerId, String containerShortId, StopOption.StopOptionSet stopOptions) throws DockerException, InterruptedException {
+        Boolean running = ContainerEvents.of(dockerClient).isRunning(containerId);
+        if (running == null) {
+            ContainerState state = dockerClient.inspectContainer(containerId).state();
+            log.debug("{} state {}", containerShortId, state);
+            running = state.running();
+        }
+        if (running) {
+            if (stopOptions.contains(StopOption.KILL)) {
+                try {
+                    dockerClient.killContainer(containerId);
+                    log.info("{} killed", containerShortId);
+                } catch (DockerRequestException e) {
+                    // container might have exited before its 'die' event arrived
+                    if (e.status() != HTTP_CONFLICT) {
+                        throw e;
+                    }
+                    log.debug("{} already not running", containerShortId);
+                }
+            } else {
+                dockerClient.stopContainer(containerId, STOP_TIMEOUT);
+                log.info("{} stopped", containerShortId);
+            }
+        }
+        if (stopOptions.contains(StopOption.REMOVE)) {
+            try {
+                dockerClient.removeContainer(containerId, DockerClient.RemoveContainerParam.removeVolumes());
+            } catch (DockerRequestException e) {
+                // container (still or again) running despite known state
+                if (e.status() != HTTP_CONFLICT) {
+                    throw e;
+                }
+                log.debug("{} still running, removing forcibly", containerShortId);
+                dockerClient.removeContainer(containerId, DockerClient.RemoveContainerParam.forceKill(), DockerClient.RemoveContainerParam.removeVolumes());
+            }
+            log.info("{} deleted", containerShortId);
+        }
+    }
+
+}
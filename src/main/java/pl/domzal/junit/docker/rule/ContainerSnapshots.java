@@ -0,0 +1,97 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.DockerClient.ListImagesParam;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.ContainerConfig;
+import com.spotify.docker.client.messages.HostConfig;
+import com.spotify.docker.client.messages.Image;
+
+/**
+ * Images committed from containers after they became ready (see
+ * {@link DockerRuleBuilder#snapshotAfterReady(pl.domzal.junit.docker.rule.wait.StartCondition...)}).
+ * Snapshot is tagged with hash of container configuration and base image id so it is
+ * not used any more after any of them change. Values specific to single run (ids of linked
+ * containers, reuse labels) are left out of the hash.
+ */
+class ContainerSnapshots {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerSnapshots.class);
+
+    static final String SNAPSHOT_REPOSITORY = "junit-docker-rule-snapshot";
+    static final String SNAPSHOT_CONFIG_LABEL = "pl.domzal.junit.docker.rule.snapshot-config-hash";
+
+    private ContainerSnapshots() {}
+
+    /**
+     * Name (with tag) of snapshot image for given container configuration.
+     */
+    static String snapshotImage(DockerClient dockerClient, ContainerConfig containerConfig) throws DockerException, InterruptedException {
+        String baseImageId = dockerClient.inspectImage(containerConfig.image()).id();
+        return SNAPSHOT_REPOSITORY + ":" + ContainerConfigHash.of(runIndependent(containerConfig), baseImageId);
+    }
+
+    /**
+     * Commit container as snapshot image. Snapshots of the same configuration made
+     * from earlier versions of base image are removed.
+     */
+    static void commit(DockerClient dockerClient, String containerId, ContainerConfig containerConfig, String snapshotImage) throws DockerException, InterruptedException {
+        String configHash = ContainerConfigHash.of(runIndependent(containerConfig));
+        removeOutdated(dockerClient, configHash, snapshotImage);
+        String tag = snapshotImage.substring(SNAPSHOT_REPOSITORY.length() + 1);
+        ContainerConfig snapshotChanges = ContainerConfig.builder()//
+                .labels(Collections.singletonMap(SNAPSHOT_CONFIG_LABEL, configHash))//
+                .build();
+        dockerClient.commitContainer(containerId, SNAPSHOT_REPOSITORY, tag, snapshotChanges, "junit-docker-rule snapshot after ready", null);
+        ImageAvailabilityCache.instance().markAvailable(dockerClient, snapshotImage);
+        log.info("container {} committed as snapshot {}", containerId, snapshotImage);
+    }
+
+    /**
+     * Configuration without values differing between runs - linked containers are identified by
+     * link alias only (dynamic link target is new container every time) and reuse labels are dropped.
+     */
+    static ContainerConfig runIndependent(ContainerConfig containerConfig) {
+        ContainerConfig.Builder builder = containerConfig.toBuilder();
+        HostConfig hostConfig = containerConfig.hostConfig();
+        if (hostConfig != null && hostConfig.links() != null) {
+            List<String> linkAliases = new ArrayList<>();
+            for (String link : hostConfig.links()) {
+                linkAliases.add(link.contains(":") ? StringUtils.substringAfterLast(link, ":") : link);
+            }
+            builder.hostConfig(hostConfig.toBuilder().links(linkAliases).build());
+        }
+        if (containerConfig.labels() != null) {
+            Map<String, String> labels = new TreeMap<>(containerConfig.labels());
+            labels.remove(ReusableContainers.CONFIG_HASH_LABEL);
+            labels.remove(ReusableContainers.TTL_LABEL);
+            builder.labels(labels);
+        }
+        return builder.build();
+    }
+
+    private static void removeOutdated(DockerClient dockerClient, String configHash, String currentSnapshotImage) throws DockerException, InterruptedException {
+        List<Image> snapshots = dockerClient.listImages(ListImagesParam.withLabel(SNAPSHOT_CONFIG_LABEL, configHash));
+        for (Image snapshot : snapshots) {
+            if (snapshot.repoTags() != null && !snapshot.repoTags().contains(currentSnapshotImage)) {
+                try {
+                    dockerClient.removeImage(snapshot.id());
+                    log.info("outdated snapshot {} removed", snapshot.repoTags());
+                } catch (DockerException e) {
+                    log.warn("unable to remove outdated snapshot {}", snapshot.repoTags(), e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.docker.client.DefaultDockerClient;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerCertificateException;
+import com.spotify.docker.client.exceptions.DockerException;
+
+/**
+ * JVM-wide registry of {@link DockerClient} instances shared by all rules.
+ * <p>
+ * Clients are keyed by docker environment (<code>DOCKER_HOST</code> and <code>DOCKER_CERT_PATH</code>)
+ * and reference counted. Server handshake (info and version check) is done once, when client is created.
+ * Client no longer referenced by any rule is kept open for {@value #IDLE_CLOSE_DELAY_SECONDS}s
+ * before it is closed - JUnit creates new test class instance (and new non-static rule) for every
+ * test method so closing it immediately would mean reconnecting for each test.
+ */
+class DockerClientRegistry {
+
+    private static Logger log = LoggerFactory.getLogger(DockerClientRegistry.class);
+
+    /**
+     * How long client with no references is kept open for reuse [s].
+     */
+    static final int IDLE_CLOSE_DELAY_SECONDS = 60;
+
+    private static final DockerClientRegistry INSTANCE = new DockerClientRegistry(new EnvClientFactory(), IDLE_CLOSE_DELAY_SECONDS);
+
+    private final ClientFactory clientFactory;
+    private final int idleCloseDelaySeconds;
+
+    private final Map<String, Entry> entriesByKey = new HashMap<>();
+    private final Map<DockerClient, Entry> entriesByClient = new HashMap<>();
+
+    private final ScheduledExecutorService idleCloser = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()//
+            .setNameFormat("dockerclient-closer-%d")//
+            .setDaemon(true)//
+            .build());
+
+    DockerClientRegistry(ClientFactory clientFactory, int idleCloseDelaySeconds) {
+        this.clientFactory = clientFactory;
+        this.idleCloseDelaySeconds = idleCloseDelaySeconds;
+    }
+
+    static DockerClientRegistry instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Shared client for current docker environment. Every call must be paired
+     * with {@link #release(DockerClient)} when client is no longer needed.
+     */
+    synchronized DockerClient acquire() throws DockerCertificateException, DockerException, InterruptedException {
+        String key = clientFactory.key();
+        Entry entry = entriesByKey.get(key);
+        if (entry == null) {
+            DockerClient client = clientFactory.create();
+            try {
+                log.debug("server.info: {}", client.info());
+                log.debug("server.version: {}", client.version());
+            } catch (DockerException | InterruptedException | RuntimeException e) {
+                // client is not registered so nobody else would close it
+                client.close();
+                throw e;
+            }
+            entry = new Entry(key, client);
+            entriesByKey.put(key, entry);
+            entriesByClient.put(client, entry);
+            log.debug("docker client created for '{}'", key);
+        }
+        if (entry.pendingClose != null) {
+            entry.pendingClose.cancel(false);
+            entry.pendingClose = null;
+        }
+        entry.references++;
+        return entry.client;
+    }
+
+    /**
+     * Release client obtained with {@link #acquire()}.
+     */
+    synchronized void release(DockerClient client) {
+        final Entry entry = entriesByClient.get(client);
+        if (entry == null) {
+            log.warn("release of unknown docker client {}", client);
+            return;
+        }
+        entry.references--;
+        if (entry.references == 0) {
+            log.trace("docker client for '{}' idle, closing in {}s", entry.key, idleCloseDelaySeconds);
+            entry.pendingClose = idleCloser.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    closeIfIdle(entry);
+                }
+            }, idleCloseDelaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Number of active references to given client (0 if client is unknown or idle).
+     */
+    synchronized int references(DockerClient client) {
+        Entry entry = entriesByClient.get(client);
+        return (entry != null ? entry.references : 0);
+    }
+
+    private synchronized void closeIfIdle(Entry entry) {
+        if (entry.references == 0 && entriesByKey.get(entry.key) == entry) {
+            entriesByKey.remove(entry.key);
+            entriesByClient.remove(entry.client);
+            entry.client.close();
+            log.debug("idle docker client for '{}' closed", entry.key);
+        }
+    }
+
+    private static class Entry {
+
+        private final String key;
+        private final DockerClient client;
+        private int references = 0;
+        private ScheduledFuture<?> pendingClose;
+
+        Entry(String key, DockerClient client) {
+            this.key = key;
+            this.client = client;
+        }
+    }
+
+    /**
+     * Creates client for current environment.
+     */
+    interface ClientFactory {
+
+        /**
+         * Key identifying environment client created by {@link #create()} would connect to.
+         */
+        String key();
+
+        DockerClient create() throws DockerCertificateException;
+    }
+
+    private static class EnvClientFactory implements ClientFactory {
+
+        @Override
+        public String key() {
+            return StringUtils.defaultString(System.getenv("DOCKER_HOST")) + "|" + StringUtils.defaultString(System.getenv("DOCKER_CERT_PATH"));
+        }
+
+        @Override
+        public DockerClient create() throws DockerCertificateException {
+            return DefaultDockerClient.fromEnv().build();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package pl.domzal.junit.docker.rule;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares docker images test class rules will need. Declared images
+ * are pulled in background before tests are run by {@link ImagePrePull}
+ * (suite {@link org.junit.ClassRule}) or {@link ImagePrePullListener} (JUnit run listener).
+ * <pre>
+ *  &#064;DockerImages({"nginx:1.13", "busybox:1.25.1"})
+ *  public class MyTest {
+ *      ...
+ *  }
+ * </pre>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DockerImages {
+
+    /**
+     * Image names (tag defaults to <code>latest</code> when not specified).
+     */
+    String[] value();
+
+}
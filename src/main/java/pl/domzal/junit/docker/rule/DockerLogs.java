@@ -4,23 +4,25 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.docker.client.DockerClient;
 import com.spotify.docker.client.DockerClient.LogsParam;
 import com.spotify.docker.client.LogStream;
 
+import pl.domzal.junit.docker.rule.logs.AsyncLogWriter;
+import pl.domzal.junit.docker.rule.logs.LogDemuxer;
+import pl.domzal.junit.docker.rule.logs.LogOverflowPolicy;
 import pl.domzal.junit.docker.rule.logs.LogPrinter;
-import pl.domzal.junit.docker.rule.logs.LogSplitter;
 import pl.domzal.junit.docker.rule.wait.LineListener;
 
 /**
@@ -30,7 +32,6 @@ class DockerLogs implements Closeable {
 
     private static Logger log = LoggerFactory.getLogger(DockerLogs.class);
 
-    private static final int NO_OF_THREADS = 4;
     private static final int SHORT_ID_LEN = 12;
 
     private final DockerClient dockerClient;
@@ -39,13 +40,19 @@ class DockerLogs implements Closeable {
 
     private PrintStream stdoutWriter = System.out;
     private PrintStream stderrWriter = System.err;
+    private LogOverflowPolicy overflowPolicy = AsyncLogWriter.defaultOverflowPolicy();
 
-    private final ThreadFactory threadFactory = new ThreadFactoryBuilder()//
-            .setNameFormat("dockerlog-pool-%d")//
-            .setDaemon(true)//
-            .build();
+    private Integer since;
+    private boolean awaited = false;
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(NO_OF_THREADS, threadFactory);
+    private LogCapture logCapture;
+    private LogArchive logArchive;
+
+    private Future<Void> reader;
+    private LogStream logStream;
+    private boolean closed = false;
+    private boolean attached = false;
+    private volatile boolean ended = false;
 
     DockerLogs(DockerClient dockerClient, String containerId, LineListener lineListener) {
         this.dockerClient = dockerClient;
@@ -61,42 +68,159 @@ class DockerLogs implements Closeable {
         this.stdoutWriter = stdoutWriter;
     }
 
+    /**
+     * What to do with printed lines when log writer queue is full.
+     */
+    void setOverflowPolicy(LogOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Follow only log written since given time (epoch seconds) instead of whole container log.
+     */
+    void setSince(int since) {
+        this.since = since;
+    }
+
+    /**
+     * Container start waits for conditions (which may examine log lines), so log reading must not be queued.
+     */
+    void setAwaited(boolean awaited) {
+        this.awaited = awaited;
+    }
+
+    /**
+     * Capture log lines (in addition to passing them to line listener).
+     */
+    void setLogCapture(LogCapture logCapture) {
+        this.logCapture = logCapture;
+    }
+
+    /**
+     * Collect log lines in archive (in addition to passing them to line listener).
+     */
+    void setLogArchive(LogArchive logArchive) {
+        this.logArchive = logArchive;
+    }
+
+    /**
+     * Whether reading captures log from container start (not only since given time).
+     */
+    boolean isReadingWholeLog() {
+        return since == null;
+    }
+
     public void start() throws IOException, InterruptedException {
         final String containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
-        final LogSplitter logSplitter = new LogSplitter();
-        if (lineListener != null) {
-            executor.submit(new LogPrinter("", logSplitter.getCombinedInput(), null, lineListener));
-        }
-        if (stdoutWriter != null) {
-            executor.submit(new LogPrinter(containerShortId+"-stdout> ", logSplitter.getStdoutInput(), stdoutWriter, null));
-        }
-        if (stderrWriter != null) {
-            executor.submit(new LogPrinter(containerShortId+"-stderr> ", logSplitter.getStderrInput(), stderrWriter, null));
-        }
-        executor.submit(new Callable<Void>() {
+        AsyncLogWriter writer = AsyncLogWriter.instance();
+        final LineListener stdoutSink = (stdoutWriter != null) ? new LogPrinter(containerShortId+"-stdout> ", stdoutWriter, writer, overflowPolicy) : null;
+        final LineListener stderrSink = (stderrWriter != null) ? new LogPrinter(containerShortId+"-stderr> ", stderrWriter, writer, overflowPolicy) : null;
+        final LineListener combinedSink = (logCapture == null && logArchive == null) ? lineListener : new LineListener() {
+            @Override
+            public void nextLine(String line) {
+                if (logCapture != null) {
+                    logCapture.nextLine(line);
+                }
+                if (logArchive != null) {
+                    logArchive.nextLine(line);
+                }
+                if (lineListener != null) {
+                    lineListener.nextLine(line);
+                }
+            }
+        };
+        Callable<Void> logReader = new Callable<Void>() {
             @Override
             public Void call() throws Exception {
                 log.trace("{} attaching to logs", containerShortId);
-                LogStream logs = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr(), LogsParam.follow());
+                LogStream logs;
+                if (since != null) {
+                    logs = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr(), LogsParam.follow(), LogsParam.since(since));
+                } else {
+                    logs = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr(), LogsParam.follow());
+                }
+                if (!attached(logs)) {
+                    IOUtils.closeQuietly(logs);
+                    return null;
+                }
                 try {
-                    logs.attach(logSplitter.getStdoutOutput(), logSplitter.getStderrOutput());
+                    LogDemuxer demuxer = new LogDemuxer(logs, stdoutSink, stderrSink, combinedSink);
+                    demuxer.run();
+                    ended = demuxer.isCompleted();
                 } finally {
-                    IOUtils.closeQuietly(logs, logSplitter);
+                    IOUtils.closeQuietly(logs);
                     log.trace("{} dettached from logs", containerShortId);
                 }
                 return null;
             }
-        });
+        };
+        reader = awaited ? LogReaders.instance().submitAwaited(logReader) : LogReaders.instance().submit(logReader);
+    }
+
+    private synchronized boolean attached(LogStream logs) {
+        if (closed) {
+            return false;
+        }
+        this.logStream = logs;
+        this.attached = true;
+        return true;
+    }
+
+    /**
+     * Wait (no longer than given time) for log stream end (and printing of read lines) - to be used
+     * after container was stopped, so log printed just before stop is not lost.
+     */
+    void awaitEnd(long timeoutMs) throws InterruptedException {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.get(timeoutMs, TimeUnit.MILLISECONDS);
+            AsyncLogWriter.instance().awaitWritten(timeoutMs);
+        } catch (ExecutionException e) {
+            log.debug("log reading failed", e.getCause());
+        } catch (TimeoutException e) {
+            log.debug("log stream not finished in {}ms", timeoutMs);
+        } catch (CancellationException e) {
+            log.trace("log reading cancelled");
+        }
+    }
+
+    /**
+     * Whether whole log stream was read (container stopped and reading was not cancelled).
+     */
+    boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Whether reading already started - reader may wait for free thread (see {@link LogReaders}).
+     */
+    synchronized boolean isAttached() {
+        return attached;
     }
 
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stop log reading (immediately - reading thread is released).
+     */
     @Override
     public void close() {
-        try {
-            executor.awaitTermination(1, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            log.warn("interrupted", e);
+        LogStream toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = logStream;
+            logStream = null;
+        }
+        if (reader != null) {
+            reader.cancel(false);
+        }
+        if (toClose != null) {
+            IOUtils.closeQuietly(toClose);
         }
-        executor.shutdown();
     }
 
 }
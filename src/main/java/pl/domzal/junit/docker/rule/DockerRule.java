@@ -1,22 +1,28 @@
 package pl.domzal.junit.docker.rule;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Rule;
+import org.junit.internal.AssumptionViolatedException;
 import org.junit.rules.ExternalResource;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
-import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerClient;
-import com.spotify.docker.client.DockerClient.ListImagesParam;
 import com.spotify.docker.client.DockerClient.LogsParam;
 import com.spotify.docker.client.LogStream;
 import com.spotify.docker.client.exceptions.DockerCertificateException;
@@ -26,9 +32,7 @@ import com.spotify.docker.client.exceptions.ImageNotFoundException;
 import com.spotify.docker.client.messages.ContainerConfig;
 import com.spotify.docker.client.messages.ContainerCreation;
 import com.spotify.docker.client.messages.ContainerInfo;
-import com.spotify.docker.client.messages.ContainerState;
 import com.spotify.docker.client.messages.HostConfig;
-import com.spotify.docker.client.messages.Image;
 import com.spotify.docker.client.messages.PortBinding;
 
 import pl.domzal.junit.docker.rule.ex.ImagePullException;
@@ -36,6 +40,8 @@ import pl.domzal.junit.docker.rule.ex.PortNotExposedException;
 import pl.domzal.junit.docker.rule.wait.LineListener;
 import pl.domzal.junit.docker.rule.wait.LineListenerProxy;
 import pl.domzal.junit.docker.rule.wait.LogChecker;
+import pl.domzal.junit.docker.rule.wait.LogLiteralsListener;
+import pl.domzal.junit.docker.rule.wait.LogLiteralsMatcher;
 import pl.domzal.junit.docker.rule.wait.StartCondition;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
@@ -55,14 +61,15 @@ public class DockerRule extends ExternalResource {
 
     private static Logger log = LoggerFactory.getLogger(DockerRule.class);
 
-    private static final int STOP_TIMEOUT = 5;
     private static final int SHORT_ID_LEN = 12;
+    private static final int LOG_END_TIMEOUT_MS = 1000;
 
     private final DockerRuleBuilder builder;
     private final String imageNameWithTag;
-    private final DockerClient dockerClient;
+    private DockerClient dockerClient;
+    private boolean dockerClientReleased = false;
 
-    private ContainerCreation container;
+    private String containerId;
     private String containerShortId;
     private String containerIp;
     private String containerGateway;
@@ -71,23 +78,35 @@ public class DockerRule extends ExternalResource {
     private ContainerInfo containerInfo;
 
     private DockerLogs dockerLogs;
+    private LogCapture logCapture;
+    private LogArchive logArchive;
+    private LineListenerProxy lineListenerProxy;
+    private ContainerEvents containerEvents;
 
-    private boolean isStarted = false;
+    private volatile boolean isStarted = false;
+    private volatile boolean testFailed = false;
+    private volatile String testClassName;
 
     DockerRule(DockerRuleBuilder builder) {
         this.builder = builder;
         this.imageNameWithTag = imageNameWithTag(builder.imageName());
         try {
-            dockerClient = DefaultDockerClient.fromEnv().build();
-            log.debug("server.info: {}", dockerClient.info());
-            log.debug("server.version: {}", dockerClient.version());
-            if (builder.imageAlwaysPull() || ! imageAvaliable(dockerClient, imageNameWithTag)) {
-                dockerClient.pull(imageNameWithTag);
+            dockerClient = DockerClientRegistry.instance().acquire();
+            ImageAvailabilityCache imageCache = ImageAvailabilityCache.instance();
+            if (builder.imageAlwaysPull()) {
+                imageCache.invalidate(dockerClient, imageNameWithTag);
+            }
+            if (builder.imageAlwaysPull() || ! imageCache.isAvailable(dockerClient, imageNameWithTag)) {
+                ImagePuller.instance().pull(dockerClient, imageNameWithTag);
             }
         } catch (ImageNotFoundException e) {
             throw new ImagePullException(String.format("Image '%s' not found", imageNameWithTag), e);
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
             throw new IllegalStateException(e);
+        } finally {
+            // rule constructed but never run must not hold client reference - it is acquired again in before()
+            // (registry keeps idle client open for a while, so this does not mean reconnecting)
+            releaseDockerClient();
         }
     }
 
@@ -98,6 +117,52 @@ public class DockerRule extends ExternalResource {
         return new DockerRuleBuilder();
     }
 
+    @Override
+    public Statement apply(final Statement base, Description description) {
+        setTestClassName(description.getClassName());
+        return super.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    base.evaluate();
+                } catch (AssumptionViolatedException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // for class rule only failure of whole class (like @BeforeClass) gets here - see failureWatcher()
+                    markTestFailed();
+                    throw e;
+                }
+            }
+        }, description);
+    }
+
+    /**
+     * Rule passing failures of single tests to this container. Failures of tests are detected
+     * automatically only when container is used as {@link Rule} - when it is {@link org.junit.ClassRule}
+     * failure-only diagnostics ({@link DockerRuleBuilder#logArchiveOnFailure(int)},
+     * {@link DockerRuleBuilder#logSpool(boolean)}) need this watcher declared as {@link Rule}:
+     * <pre>
+     *  &#064;ClassRule
+     *  public static DockerRule container = DockerRule.builder()...build();
+     *  &#064;Rule
+     *  public TestRule failureWatcher = container.failureWatcher();
+     * </pre>
+     */
+    public TestRule failureWatcher() {
+        return new FailureWatcher(Collections.singletonList(this));
+    }
+
+    void setTestClassName(String testClassName) {
+        this.testClassName = testClassName;
+    }
+
+    /**
+     * Mark test (or test class) using this container as failed - some diagnostics are kept only for failed tests.
+     */
+    void markTestFailed() {
+        testFailed = true;
+    }
+
     /**
      * Create and start container.<br/>
      * This is {@link ExternalResource#before()} made available as public - it may be helpful in scenarios
@@ -123,52 +188,157 @@ public class DockerRule extends ExternalResource {
                 .env(builder.env())//
                 .networkDisabled(false)//
                 .exposedPorts(builder.containerExposedPorts())
-                .labels(builder.getLabels());
+                .labels(containerLabels());
         if (builder.entrypoint().length > 0) {
             containerConfigBuilder.entrypoint(builder.entrypoint());
         }
         if (builder.cmd().length > 0) {
             containerConfigBuilder.cmd(builder.cmd());
         }
+        if (builder.healthCheck() != null) {
+            containerConfigBuilder.healthcheck(builder.healthCheck());
+        }
         ContainerConfig containerConfig = containerConfigBuilder.build();
+        String reusedContainerId = null;
+        boolean started = false;
         try {
-            if (StringUtils.isNotBlank(builder.name())) {
-                this.container = dockerClient.createContainer(containerConfig, builder.name());
-            } else {
-                this.container = dockerClient.createContainer(containerConfig);
+            if (dockerClientReleased) {
+                dockerClient = DockerClientRegistry.instance().acquire();
+                dockerClientReleased = false;
+            }
+            containerEvents = ContainerEvents.of(dockerClient);
+            containerEvents.subscribe();
+            String snapshotImage = null;
+            boolean startedFromSnapshot = false;
+            if (builder.reuseContainerTtl() > 0) {
+                // container of previous run (if any) is no longer used by this rule
+                containerId = null;
+                ReusableContainers.removeExpired(dockerClient);
+                String configHash = ContainerConfigHash.of(containerConfig);
+                containerConfig = containerConfigBuilder
+                        .labels(ReusableContainers.labels(containerLabels(), configHash, builder.reuseContainerTtl()))
+                        .build();
+                reusedContainerId = ReusableContainers.findRunning(dockerClient, configHash);
             }
 
-            this.containerShortId = StringUtils.left(container.id(), SHORT_ID_LEN);
-            log.info("container {} created, id {}, short id {}", imageNameWithTag, container.id(), containerShortId);
-            log.debug("rule before {}", containerShortId);
-
-            dockerClient.startContainer(container.id());
-            log.debug("{} started", containerShortId);
-
-            LineListenerProxy proxyLineListener = new LineListenerProxy();
-            attachLogs(dockerClient, container.id(), proxyLineListener);
+            if (reusedContainerId != null) {
+                this.containerId = reusedContainerId;
+                this.containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
+                log.info("container {} reused, id {}, short id {}", imageNameWithTag, containerId, containerShortId);
+            } else {
+                if (builder.isSnapshotAfterReady()) {
+                    snapshotImage = ContainerSnapshots.snapshotImage(dockerClient, containerConfig);
+                    startedFromSnapshot = ImageAvailabilityCache.instance().isAvailable(dockerClient, snapshotImage);
+                }
+                if (startedFromSnapshot) {
+                    log.info("starting {} from snapshot {}", imageNameWithTag, snapshotImage);
+                    createAndStartContainer(containerConfigBuilder.image(snapshotImage).build());
+                } else {
+                    createAndStartContainer(containerConfig);
+                }
+            }
+            if (builder.reuseContainerTtl() > 0) {
+                ReusableContainers.markInUse(containerId);
+            }
 
-            ContainerInfo containerInfo = dockerClient.inspectContainer(container.id());
+            ContainerInfo containerInfo = dockerClient.inspectContainer(containerId);
             containerIp = containerInfo.networkSettings().ipAddress();
             containerPorts = containerInfo.networkSettings().ports();
             containerGateway = containerInfo.networkSettings().gateway();
             this.containerInfo = containerInfo;
 
-            executeWaitForConditions(proxyLineListener);
+            LineListenerProxy proxyLineListener = new LineListenerProxy(builder.logHistoryLines(), builder.logHistoryChars());
+            this.lineListenerProxy = proxyLineListener;
+            List<StartConditionCheck> conditions = Lists.newArrayList();
+            if (reusedContainerId == null) {
+                for (StartCondition conditionBuilder : startedFromSnapshot ? builder.getSnapshotWaitFor() : builder.getWaitFor()) {
+                    conditions.add(conditionBuilder.build(this));
+                }
+                // before log reading starts, so log conditions see every line (not only ones kept in history)
+                registerConditionLineListeners(conditions, proxyLineListener);
+            }
+            attachLogs(dockerClient, containerId, proxyLineListener, reusedContainerId != null, !conditions.isEmpty());
+
+            if (reusedContainerId == null) {
+                WaitForContainer.waitForConditions(conditions, builder.waitForSeconds(), builder.waitPollStrategy(), describe());
+                if (snapshotImage != null && !startedFromSnapshot) {
+                    ContainerSnapshots.commit(dockerClient, containerId, containerConfig, snapshotImage);
+                }
+                if (builder.reuseContainerTtl() > 0) {
+                    ReusableContainers.markReady(containerId);
+                }
+            }
             logNetworkSettings();
 
             isStarted = true;
+            started = true;
         } catch (DockerRequestException e) {
             throw new IllegalStateException(e.getResponseBody(), e);
-        } catch (DockerException | InterruptedException e) {
+        } catch (DockerCertificateException | DockerException | InterruptedException e) {
             throw new IllegalStateException(e);
+        } finally {
+            if (!started && builder.reuseContainerTtl() > 0 && containerId != null) {
+                // after() is not called when before() fails
+                abandonReusableContainer(reusedContainerId != null);
+            }
         }
     }
 
+    private void abandonReusableContainer(boolean reused) {
+        if (dockerLogs != null) {
+            dockerLogs.close();
+        }
+        if (reused) {
+            ReusableContainers.markUnused(containerId);
+        } else {
+            ReusableContainers.removeNotReady(dockerClient, containerId);
+            containerId = null;
+        }
+    }
+
+    private void createAndStartContainer(ContainerConfig containerConfig) throws DockerException, InterruptedException {
+        ContainerCreation container;
+        if (StringUtils.isNotBlank(builder.name())) {
+            container = dockerClient.createContainer(containerConfig, builder.name());
+        } else {
+            container = dockerClient.createContainer(containerConfig);
+        }
+        this.containerId = container.id();
+        this.containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
+        log.info("container {} created, id {}, short id {}", imageNameWithTag, containerId, containerShortId);
+        log.debug("rule before {}", containerShortId);
+        containerEvents.track(containerId);
+
+        dockerClient.startContainer(containerId);
+        log.debug("{} started", containerShortId);
+    }
+
+    private Map<String, String> containerLabels() {
+        Map<String, String> labels = new HashMap<>(builder.getLabels());
+        labels.put(ContainerEvents.OWNER_LABEL, ContainerEvents.OWNER_LABEL_VALUE);
+        return labels;
+    }
+
     private boolean isStarted() {
         return isStarted;
     }
 
+    List<DockerRule> getDynamicLinkTargets() {
+        List<DockerRule> targets = new ArrayList<>();
+        for (Pair<DockerRule,String> dynamicLink : builder.getDynamicLinks()) {
+            targets.add(dynamicLink.getKey());
+        }
+        return targets;
+    }
+
+    List<String> getStaticLinks() {
+        return builder.staticLinks();
+    }
+
+    String getName() {
+        return StringUtils.trimToNull(builder.name());
+    }
+
     private List<String> links() {
         List<String> resolvedLinks = new ArrayList<>();
         resolvedLinks.addAll(builder.staticLinks());
@@ -183,24 +353,19 @@ public class DockerRule extends ExternalResource {
         return resolvedLinks;
     }
 
-    private void executeWaitForConditions(LineListenerProxy proxyLineListener) throws TimeoutException {
-        List<StartConditionCheck> conditions = Lists.newArrayList();
-        for (StartCondition conditionBuilder : builder.getWaitFor()) {
-            conditions.add(conditionBuilder.build(this));
-        }
-        registerConditionLineListeners(conditions, proxyLineListener);
-        // execute waiting
-        for (StartConditionCheck condition : conditions) {
-            WaitForContainer.waitForCondition(condition, builder.waitForSeconds(), describe());
-        }
-    }
-
     private void registerConditionLineListeners(List<StartConditionCheck> conditions, LineListenerProxy proxyLineListener) {
+        // literal patterns of all conditions are searched for at once
+        List<LogLiteralsListener> literalsListeners = Lists.newArrayList();
         for (StartConditionCheck condition : conditions) {
-            if (condition instanceof LineListener) {
+            if (condition instanceof LogLiteralsListener) {
+                literalsListeners.add((LogLiteralsListener) condition);
+            } else if (condition instanceof LineListener) {
                 proxyLineListener.add((LineListener) condition);
             }
         }
+        if (!literalsListeners.isEmpty()) {
+            proxyLineListener.add(new LogLiteralsMatcher(literalsListeners));
+        }
     }
 
     Integer findExternalPort(Integer internalPort) {
@@ -226,31 +391,35 @@ public class DockerRule extends ExternalResource {
         return firstExposedPort;
     }
 
-    private void attachLogs(DockerClient dockerClient, String containerId, LineListener lineListener) throws IOException, InterruptedException {
+    private void attachLogs(DockerClient dockerClient, String containerId, LineListener lineListener, boolean newLogsOnly, boolean awaited) throws IOException, InterruptedException {
         dockerLogs = new DockerLogs(dockerClient, containerId, lineListener);
-        if (builder.stdoutWriter()!=null) {
-            dockerLogs.setStdoutWriter(builder.stdoutWriter());
+        dockerLogs.setAwaited(awaited);
+        logCapture = builder.logSpool() ? LogSpool.create(containerShortId) : new MemoryLogCapture();
+        dockerLogs.setLogCapture(logCapture);
+        if (newLogsOnly) {
+            dockerLogs.setSince((int) TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
         }
-        if (builder.stderrWriter()!=null) {
-            dockerLogs.setStderrWriter(builder.stderrWriter());
+        if (builder.logOverflowPolicy() != null) {
+            dockerLogs.setOverflowPolicy(builder.logOverflowPolicy());
         }
-        dockerLogs.start();
-    }
-
-    private boolean imageAvaliable(DockerClient dockerClient, String imageName) throws DockerException, InterruptedException {
-        String imageNameWithTag = imageNameWithTag(imageName);
-        List<Image> listImages = dockerClient.listImages(ListImagesParam.danglingImages(false));
-        for (Image image : listImages) {
-            if (image.repoTags() != null && image.repoTags().contains(imageNameWithTag)) {
-                log.debug("image '{}' found", imageNameWithTag);
-                return true;
+        if (builder.logArchiveLimitKb() > 0) {
+            logArchive = new LogArchive(builder.logArchiveLimitKb() * 1024L);
+            dockerLogs.setLogArchive(logArchive);
+            // log is printed only when explicitly requested
+            dockerLogs.setStdoutWriter(builder.stdoutWriter());
+            dockerLogs.setStderrWriter(builder.stderrWriter());
+        } else {
+            if (builder.stdoutWriter()!=null) {
+                dockerLogs.setStdoutWriter(builder.stdoutWriter());
+            }
+            if (builder.stderrWriter()!=null) {
+                dockerLogs.setStderrWriter(builder.stderrWriter());
             }
         }
-        log.debug("image '{}' not found", imageNameWithTag);
-        return false;
+        dockerLogs.start();
     }
 
-    private String imageNameWithTag(String imageName) {
+    static String imageNameWithTag(String imageName) {
         if (! StringUtils.contains(imageName, ':')) {
             return imageName + ":latest";
         } else {
@@ -267,25 +436,58 @@ public class DockerRule extends ExternalResource {
     public final void after() {
         log.debug("after {}", containerShortId);
         try {
-            dockerLogs.close();
-            ContainerState state = dockerClient.inspectContainer(container.id()).state();
-            log.debug("{} state {}", containerShortId, state);
-            if (state.running()) {
-                if (builder.stopOptions().contains(StopOption.KILL)) {
-                    dockerClient.killContainer(container.id());
-                    log.info("{} killed", containerShortId);
-                } else {
-                    dockerClient.stopContainer(container.id(), STOP_TIMEOUT);
-                    log.info("{} stopped", containerShortId);
+            if (builder.reuseContainerTtl() > 0) {
+                ReusableContainers.markUnused(containerId);
+                log.info("{} left running for reuse", containerShortId);
+                return;
+            }
+            if (builder.asyncTeardown()) {
+                // reaper takes over rule reference of docker client
+                ContainerReaper.instance().teardownAsync(dockerClient, containerId, containerShortId, builder.stopOptions());
+                dockerClientReleased = true;
+            } else {
+                ContainerReaper.teardown(dockerClient, containerId, containerShortId, builder.stopOptions());
+                if (dockerLogs != null) {
+                    // container is stopped so log stream ends - do not lose last lines
+                    dockerLogs.awaitEnd(LOG_END_TIMEOUT_MS);
                 }
             }
             if (builder.stopOptions().contains(StopOption.REMOVE)) {
-                dockerClient.removeContainer(container.id(), DockerClient.RemoveContainerParam.removeVolumes());
-                log.info("{} deleted", containerShortId);
-                container = null;
+                containerId = null;
             }
         } catch (DockerException | InterruptedException e) {
             throw new IllegalStateException(e);
+        } finally {
+            if (dockerLogs != null) {
+                dockerLogs.close();
+            }
+            if (logCapture != null) {
+                logCapture.release(testFailed);
+            }
+            if (logArchive != null) {
+                archiveLog();
+            }
+            releaseDockerClient();
+        }
+    }
+
+    private void archiveLog() {
+        if (testFailed) {
+            File archiveFile = LogArchive.archiveFile(StringUtils.defaultString(testClassName, "unknown"), StringUtils.defaultString(getName(), containerShortId));
+            try {
+                logArchive.writeTo(archiveFile);
+                log.info("{} log archived to {}", containerShortId, archiveFile);
+            } catch (IOException e) {
+                log.warn("{} unable to write log archive {}", containerShortId, archiveFile, e);
+            }
+        }
+        logArchive.clear();
+    }
+
+    private void releaseDockerClient() {
+        if (!dockerClientReleased && dockerClient != null) {
+            DockerClientRegistry.instance().release(dockerClient);
+            dockerClientReleased = true;
         }
     }
 
@@ -359,7 +561,20 @@ public class DockerRule extends ExternalResource {
      * @throws TimeoutException On wait timeout.
      */
     public void waitForLogMessage(final String logSearchString, int waitTime) throws TimeoutException {
-        WaitForContainer.waitForCondition(new LogChecker(this, logSearchString), waitTime, describe());
+        if (lineListenerProxy == null) {
+            throw new IllegalStateException("container not started");
+        }
+        // lines older than history are not replayed
+        if (lineListenerProxy.isHistoryTruncated() && logContains(logSearchString)) {
+            return;
+        }
+        LogChecker logChecker = new LogChecker(logSearchString);
+        lineListenerProxy.add(logChecker);
+        try {
+            WaitForContainer.waitForCondition(logChecker, waitTime, builder.waitPollStrategy(), describe());
+        } finally {
+            lineListenerProxy.remove(logChecker);
+        }
     }
 
     /**
@@ -367,17 +582,127 @@ public class DockerRule extends ExternalResource {
      */
     public void waitForExit() throws InterruptedException {
         try {
-            dockerClient.waitContainer(container.id());
+            if (containerEvents == null || containerEvents.awaitExit(containerId) == null) {
+                dockerClient.waitContainer(containerId);
+            }
+            if (dockerLogs != null) {
+                dockerLogs.awaitEnd(LOG_END_TIMEOUT_MS);
+            }
         } catch (DockerException e) {
             throw new IllegalStateException(e);
         }
     }
 
     /**
-     * Container log.
+     * Container log (stdout and stderr).<br/>
+     * Log is served from local capture of container output, it is fetched from docker only
+     * when capture does not contain whole log (for example when container was reused, log
+     * reading was cancelled before container stop or has not started yet).
+     * <p>
+     * Please note log of running container is read asynchronously, so it may lack lines
+     * container has just written.
      */
     public String getLog() {
-        try (LogStream stream = dockerClient.logs(container.id(), LogsParam.stdout(), LogsParam.stderr());) {
+        if (isLogCaptureComplete()) {
+            return logCapture.getLog();
+        }
+        return fetchLog();
+    }
+
+    /**
+     * Number of log lines received so far. Can be used as marker for {@link #getLogSince(int)}.
+     */
+    public int getLogLineCount() {
+        return requireLogCapture().lineCount();
+    }
+
+    /**
+     * Container log received after given marker.
+     *
+     * @param marker Number of log lines (as returned by {@link #getLogLineCount()} at some point).
+     */
+    public String getLogSince(int marker) {
+        return requireLogCapture().getLog(marker, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Last lines of container log (fetched from docker when local capture does not contain whole log,
+     * see {@link #getLog()}).
+     *
+     * @param lines Number of lines.
+     */
+    public String getLogTail(int lines) {
+        LogCapture capture = requireLogCapture();
+        if (!isLogCaptureComplete()) {
+            return tailLines(fetchLog(), lines);
+        }
+        int lineCount = capture.lineCount();
+        return capture.getLog(lineCount - lines, lineCount);
+    }
+
+    /**
+     * Container log lines (without line ends) within given range.
+     *
+     * @param from First line number (inclusive, counted from 0).
+     * @param to Last line number (exclusive).
+     */
+    public List<String> getLogLines(int from, int to) {
+        return requireLogCapture().getLines(from, to);
+    }
+
+    private LogCapture requireLogCapture() {
+        if (logCapture == null) {
+            throw new IllegalStateException("container not started");
+        }
+        return logCapture;
+    }
+
+    private boolean logContains(String text) {
+        if (isLogCaptureComplete()) {
+            return logCapture.contains(text);
+        }
+        return fetchLog().contains(text);
+    }
+
+    private boolean isLogCaptureComplete() {
+        if (logCapture == null || !dockerLogs.isReadingWholeLog()) {
+            return false;
+        }
+        if (dockerLogs.isEnded()) {
+            return true;
+        }
+        if (dockerLogs.isClosed()) {
+            return false;
+        }
+        if (containerEvents != null && containerId != null && containerEvents.exitCode(containerId) != null) {
+            // container exited - wait for remaining lines
+            try {
+                dockerLogs.awaitEnd(LOG_END_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return dockerLogs.isEnded();
+        }
+        // container running - capture is as complete as log read so far, unless reading waits for free thread
+        return dockerLogs.isAttached();
+    }
+
+    static String tailLines(String text, int lines) {
+        if (lines <= 0) {
+            return "";
+        }
+        int from = text.endsWith("\n") ? text.length() - 1 : text.length();
+        for (int i = 0; i < lines; i++) {
+            from = text.lastIndexOf('\n', from - 1);
+            if (from < 0) {
+                return text;
+            }
+        }
+        return text.substring(from + 1);
+    }
+
+    private String fetchLog() {
+        try (LogStream stream = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr());) {
             String fullLog = stream.readFully();
             if (log.isTraceEnabled()) {
                 log.trace("{} full log: {}", containerShortId, StringUtils.replace(fullLog, "\n", "|"));
@@ -393,7 +718,7 @@ public class DockerRule extends ExternalResource {
      * Id of container (null if it is not yet been created or has been stopped).
      */
     public String getContainerId() {
-        return (container!=null ? container.id() : null);
+        return containerId;
     }
 
     /**
@@ -405,8 +730,14 @@ public class DockerRule extends ExternalResource {
         return containerInfo;
     }
 
+    ContainerEvents getContainerEvents() {
+        return containerEvents;
+    }
+
     /**
-     * {@link DockerClient} for direct container manipulation.
+     * {@link DockerClient} for direct container manipulation.<br/>
+     * Client is shared between all rules using the same docker environment so it <b>must not</b> be closed.
+     * Rule holds client reference only while container is started (from {@link #before()} to {@link #after()}).
      */
     public DockerClient getDockerClient() {
         return dockerClient;
@@ -3,12 +3,15 @@ package pl.domzal.junit.docker.rule;
 import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.spotify.docker.client.messages.ContainerConfig;
 import com.spotify.docker.client.messages.HostConfig;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -17,6 +20,11 @@ import org.junit.rules.RuleChain;
 import com.spotify.docker.client.messages.PortBinding;
 
 import pl.domzal.junit.docker.rule.ex.InvalidVolumeFrom;
+import pl.domzal.junit.docker.rule.logs.AsyncLogWriter;
+import pl.domzal.junit.docker.rule.logs.LogOverflowPolicy;
+import pl.domzal.junit.docker.rule.wait.BackoffPollStrategy;
+import pl.domzal.junit.docker.rule.wait.LineListenerProxy;
+import pl.domzal.junit.docker.rule.wait.PollStrategy;
 import pl.domzal.junit.docker.rule.wait.StartCondition;
 
 public class DockerRuleBuilder {
@@ -39,14 +47,28 @@ public class DockerRuleBuilder {
     private boolean imageAlwaysPull = false;
     private PrintStream stdoutWriter;
     private PrintStream stderrWriter;
+    private int logHistoryLines = LineListenerProxy.DEFAULT_HISTORY_LIMIT;
+    private int logHistoryChars = LineListenerProxy.DEFAULT_HISTORY_CHAR_LIMIT;
 
     private List<StartCondition> waitConditions = new ArrayList<>();
     private int waitForSeconds = WAIT_FOR_DEFAULT_SECONDS;
+    private PollStrategy waitPollStrategy = BackoffPollStrategy.defaultStrategy();
 
     private StopOption.StopOptionSet stopOptions = new StopOption.StopOptionSet();
+    private boolean asyncTeardown = false;
+    private boolean logSpool = false;
+    private int logArchiveLimitKb = 0;
+    private LogOverflowPolicy logOverflowPolicy;
 
     private RestartPolicy restartPolicy;
 
+    private ContainerConfig.Healthcheck healthCheck;
+
+    private int reuseContainerTtl = 0;
+
+    private boolean snapshotAfterReady = false;
+    private List<StartCondition> snapshotWaitConditions = new ArrayList<>();
+
     DockerRuleBuilder(){}
 
     public DockerRule build() {
@@ -381,7 +403,8 @@ public class DockerRuleBuilder {
 
     /**
      * Make rule to wait for specified condition. Can be used multiple times
-     * and in this case conditions are checked in definiction's order.
+     * and in this case all conditions are checked concurrently (independent of definition's order)
+     * within single {@link #waitForTimeout(int)}.
      * <p>
      * To define custom startup conditions one should supply {@link StartCondition}
      * instance as method argument. Predefined set of conditions are available
@@ -450,7 +473,8 @@ public class DockerRuleBuilder {
     }
 
     /**
-     * Set default timeout for all wait methods.
+     * Set default timeout for all wait methods. Start conditions
+     * ({@link #waitFor(StartCondition)}) share single timeout - all must be met within given time.
      *
      * @param waitForSeconds
      */
@@ -459,6 +483,87 @@ public class DockerRuleBuilder {
         return this;
     }
 
+    /**
+     * Delays between checks of polled start conditions (like {@link WaitFor#tcpPort(int...)} or
+     * {@link WaitFor#httpPing(int)}). Default is {@link BackoffPollStrategy#defaultStrategy()} - short
+     * delays at start growing up to 1 second. Log and health conditions are not polled.
+     */
+    public DockerRuleBuilder waitPollStrategy(PollStrategy waitPollStrategy) {
+        this.waitPollStrategy = waitPollStrategy;
+        return this;
+    }
+    PollStrategy waitPollStrategy() {
+        return waitPollStrategy;
+    }
+
+    /**
+     * Size of container log history kept (since container start) for wait conditions
+     * registered after container start. Oldest lines are dropped when any of limits is exceeded.
+     * Default is {@value LineListenerProxy#DEFAULT_HISTORY_LIMIT} lines and
+     * {@value LineListenerProxy#DEFAULT_HISTORY_CHAR_LIMIT} characters.
+     *
+     * @param lines Max number of lines.
+     * @param chars Max number of characters (of all lines).
+     */
+    public DockerRuleBuilder logHistoryLimit(int lines, int chars) {
+        this.logHistoryLines = lines;
+        this.logHistoryChars = chars;
+        return this;
+    }
+    int logHistoryLines() {
+        return logHistoryLines;
+    }
+    int logHistoryChars() {
+        return logHistoryChars;
+    }
+
+    /**
+     * Spool container log to file instead of keeping it in memory - for containers producing
+     * large logs. Log is read ({@link DockerRule#getLog()}, {@link DockerRule#getLogLines(int, int)} etc.)
+     * through memory-mapped view of the file. Spool file is deleted when container is stopped,
+     * unless test failed (file location is logged then, see {@link DockerRule#failureWatcher()} for
+     * {@link org.junit.ClassRule}). After container is stopped only last 1MB of log remains readable.
+     */
+    public DockerRuleBuilder logSpool(boolean logSpool) {
+        this.logSpool = logSpool;
+        return this;
+    }
+    boolean logSpool() {
+        return logSpool;
+    }
+
+    /**
+     * What to do with printed container log lines when queue of (JVM-wide, asynchronous)
+     * log writer is full. Default is {@link LogOverflowPolicy#BLOCK} (can be changed with
+     * {@value AsyncLogWriter#OVERFLOW_POLICY_PROPERTY} system property).
+     */
+    public DockerRuleBuilder logOverflowPolicy(LogOverflowPolicy logOverflowPolicy) {
+        this.logOverflowPolicy = logOverflowPolicy;
+        return this;
+    }
+    LogOverflowPolicy logOverflowPolicy() {
+        return logOverflowPolicy;
+    }
+
+    /**
+     * Keep container log only for failed tests. Instead of being printed (unless
+     * {@link #stdoutWriter(PrintStream)} or {@link #stderrWriter(PrintStream)} is set explicitly)
+     * container output is buffered in compressed form and written to
+     * <code>target/docker-logs/&lt;test class&gt;/&lt;container name or id&gt;.log.gz</code>
+     * when test fails. Otherwise buffer is dropped. Test failures are not visible to {@link org.junit.ClassRule} -
+     * in such case declare {@link DockerRule#failureWatcher()} as {@link org.junit.Rule}.
+     * Base directory can be changed with <code>junit.docker.rule.logArchiveDir</code> system property.
+     *
+     * @param maxCompressedKb Max size of compressed log (kB) - oldest lines are dropped when exceeded.
+     */
+    public DockerRuleBuilder logArchiveOnFailure(int maxCompressedKb) {
+        this.logArchiveLimitKb = maxCompressedKb;
+        return this;
+    }
+    int logArchiveLimitKb() {
+        return logArchiveLimitKb;
+    }
+
     /**
      * Container stopping behavior. By default container are stopped
      * ({@link StopOption#STOP}) and removed ({@link StopOption#REMOVE}).
@@ -474,6 +579,19 @@ public class DockerRuleBuilder {
         return this.stopOptions;
     }
 
+    /**
+     * Asynchronous teardown. When enabled container is stopped (or killed) and removed
+     * (according to {@link #stopOptions(StopOption...)}) in background so next test
+     * does not wait for it. Pending teardowns are completed at JVM shutdown.
+     */
+    public DockerRuleBuilder asyncTeardown(boolean asyncTeardown) {
+        this.asyncTeardown = asyncTeardown;
+        return this;
+    }
+    boolean asyncTeardown() {
+        return asyncTeardown;
+    }
+
     /**
      * Add container label (call multiple times to add more than one).
      * @param name Label name.
@@ -509,4 +627,72 @@ public class DockerRuleBuilder {
     RestartPolicy restartPolicy() {
         return restartPolicy;
     }
+
+    /**
+     * Override (or define) container health check - equivalent of Dockerfile
+     * <code>HEALTHCHECK CMD</code> (shell form). Use together with {@link WaitFor#healthy()}.
+     *
+     * @param shellCommand Check command (run with container default shell), exit code 0 means healthy.
+     * @param intervalSeconds Time between checks.
+     * @param timeoutSeconds Time single check may take.
+     * @param retries Number of consecutive failures after which container is considered unhealthy.
+     */
+    public DockerRuleBuilder healthCheck(String shellCommand, int intervalSeconds, int timeoutSeconds, int retries) {
+        this.healthCheck = ContainerConfig.Healthcheck.create(Arrays.asList("CMD-SHELL", shellCommand),//
+                TimeUnit.SECONDS.toNanos(intervalSeconds),//
+                TimeUnit.SECONDS.toNanos(timeoutSeconds),//
+                retries);
+        return this;
+    }
+    ContainerConfig.Healthcheck healthCheck() {
+        return healthCheck;
+    }
+
+    /**
+     * Reuse mode. When enabled rule looks for running container created (in this or earlier run)
+     * from exactly the same configuration and, if it is found, attaches to it - skipping container
+     * creation, start and wait for conditions. Only container which met all its start conditions
+     * is reused (container which failed to start is removed right away). Container started by rule
+     * in this mode is left running after test (stop options are ignored) and is removed by first rule
+     * in reuse mode started after its time to live has passed - but never while other rule (of any JVM
+     * on the same machine) uses it.
+     * <p>
+     * Please note reused container keeps state from previous usages. Expired containers are removed
+     * only when reuse mode rule is started - containers of configurations no longer used are left running
+     * (and accumulate) until removed manually (they are labeled with
+     * <code>pl.domzal.junit.docker.rule.config-hash</code>).
+     *
+     * @param ttlSeconds Time (since last use) reusable container can be reused for. Value
+     *                   less or equal to zero disables reuse mode (which is default).
+     */
+    public DockerRuleBuilder reuseContainer(int ttlSeconds) {
+        this.reuseContainerTtl = ttlSeconds;
+        return this;
+    }
+    int reuseContainerTtl() {
+        return reuseContainerTtl;
+    }
+
+    /**
+     * Snapshot mode. When container (started from base image) is ready - all wait conditions are met -
+     * it is committed to local image. Subsequent starts with the same configuration (in this and
+     * later runs) create container from this snapshot image, skipping slow first-boot initialization.
+     * Snapshot is not used (and is replaced with new one) when configuration or base image changes.
+     * <p>
+     * Please note volumes content is not part of snapshot.
+     *
+     * @param snapshotWaitFor Conditions container started from snapshot must meet. When none given
+     *                        conditions defined with {@link #waitFor(StartCondition)} are used.
+     */
+    public DockerRuleBuilder snapshotAfterReady(StartCondition... snapshotWaitFor) {
+        this.snapshotAfterReady = true;
+        this.snapshotWaitConditions = Arrays.asList(snapshotWaitFor);
+        return this;
+    }
+    boolean isSnapshotAfterReady() {
+        return snapshotAfterReady;
+    }
+    List<StartCondition> getSnapshotWaitFor() {
+        return snapshotWaitConditions.isEmpty() ? waitConditions : snapshotWaitConditions;
+    }
 }
@@ -0,0 +1,318 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.rules.ExternalResource;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+/**
+ * Group of containers started (and stopped) together with respect to links between them.
+ * Unlike {@link RuleChain} - which starts containers one after another - group starts
+ * concurrently all containers which do not depend on each other. Dependencies are derived from
+ * dynamic links ({@link DockerRuleBuilder#link(DockerRule, String)}) and static links
+ * ({@link DockerRuleBuilder#link(String)}) to named group members.
+ * <pre>
+ *  &#064;ClassRule
+ *  public static DockerRuleGroup containers = DockerRuleGroup.of(db, cache, web);
+ * </pre>
+ * When any member fails to start, members still starting are interrupted and all started
+ * members are stopped.
+ * <p>
+ * Group members must not be used as separate {@link Rule}s or {@link ClassRule}s.
+ */
+public class DockerRuleGroup extends ExternalResource {
+
+    private static Logger log = LoggerFactory.getLogger(DockerRuleGroup.class);
+
+    private static final int MEMBER_TERMINATION_TIMEOUT_MINUTES = 10;
+
+    private final List<List<DockerRule>> levels;
+
+    private final ThreadFactory threadFactory = new ThreadFactoryBuilder()//
+            .setNameFormat("dockergroup-%d")//
+            .setDaemon(true)//
+            .build();
+
+    private final List<DockerRule> started = Collections.synchronizedList(new ArrayList<DockerRule>());
+
+    DockerRuleGroup(List<DockerRule> members) {
+        this.levels = dependencyLevels(members, dependencies(members));
+        log.debug("group start levels: {}", levels.size());
+    }
+
+    /**
+     * Create group of given containers.
+     */
+    public static DockerRuleGroup of(DockerRule... members) {
+        return new DockerRuleGroup(Arrays.asList(members));
+    }
+
+    @Override
+    public Statement apply(final Statement base, Description description) {
+        for (List<DockerRule> level : levels) {
+            for (DockerRule member : level) {
+                member.setTestClassName(description.getClassName());
+            }
+        }
+        return super.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    base.evaluate();
+                } catch (AssumptionViolatedException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // for class rule only failure of whole class (like @BeforeClass) gets here - see failureWatcher()
+                    for (List<DockerRule> level : levels) {
+                        for (DockerRule member : level) {
+                            member.markTestFailed();
+                        }
+                    }
+                    throw e;
+                }
+            }
+        }, description);
+    }
+
+    /**
+     * Rule passing failures of single tests to all group members - needed when group is used as
+     * {@link ClassRule} (see {@link DockerRule#failureWatcher()}).
+     */
+    public TestRule failureWatcher() {
+        List<DockerRule> members = new ArrayList<>();
+        for (List<DockerRule> level : levels) {
+            members.addAll(level);
+        }
+        return new FailureWatcher(members);
+    }
+
+    /**
+     * Start all group containers. This is {@link ExternalResource#before()} made available as public.
+     */
+    @Override
+    public void before() throws Throwable {
+        try {
+            for (List<DockerRule> level : levels) {
+                startLevel(level);
+            }
+        } catch (Throwable e) {
+            after();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop all group containers (in reverse dependency order). This is {@link ExternalResource#after()} made available as public.
+     */
+    @Override
+    public void after() {
+        RuntimeException firstFailure = null;
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            List<DockerRule> levelStarted = new ArrayList<>(levels.get(i));
+            levelStarted.retainAll(started);
+            try {
+                stopLevel(levelStarted);
+            } catch (RuntimeException e) {
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+            started.removeAll(levelStarted);
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+
+    private void startLevel(List<DockerRule> level) throws Throwable {
+        if (level.size() == 1) {
+            startMember(level.get(0));
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(level.size(), threadFactory);
+        CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> starts = new ArrayList<>();
+        try {
+            for (final DockerRule member : level) {
+                starts.add(completion.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            startMember(member);
+                        } catch (Exception | Error e) {
+                            throw e;
+                        } catch (Throwable e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < starts.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    log.warn("group member start failed, interrupting remaining members");
+                    for (Future<Void> start : starts) {
+                        start.cancel(true);
+                    }
+                    throw e.getCause();
+                }
+            }
+        } finally {
+            // make sure interrupted members are done (and cleaned up) before group cleanup
+            executor.shutdown();
+            executor.awaitTermination(MEMBER_TERMINATION_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    private void startMember(DockerRule member) throws Throwable {
+        try {
+            member.before();
+        } catch (Throwable e) {
+            if (member.getContainerId() != null) {
+                stopQuietly(member);
+            }
+            throw e;
+        }
+        started.add(member);
+    }
+
+    private void stopLevel(List<DockerRule> level) {
+        if (level.size() == 1) {
+            level.get(0).after();
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(level.size(), threadFactory);
+        try {
+            List<Future<Void>> stops = new ArrayList<>();
+            for (final DockerRule member : level) {
+                stops.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        member.after();
+                        return null;
+                    }
+                }));
+            }
+            RuntimeException firstFailure = null;
+            for (Future<Void> stop : stops) {
+                try {
+                    stop.get();
+                } catch (ExecutionException e) {
+                    if (firstFailure == null) {
+                        firstFailure = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("Interrupted while stopping group", e);
+                }
+            }
+            if (firstFailure != null) {
+                throw firstFailure;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void stopQuietly(DockerRule member) {
+        try {
+            member.after();
+        } catch (RuntimeException e) {
+            log.warn("{} cleanup after failed start failed", member.getContainerId(), e);
+        }
+    }
+
+    private static Map<DockerRule, List<DockerRule>> dependencies(List<DockerRule> members) {
+        Map<String, DockerRule> membersByName = new HashMap<>();
+        for (DockerRule member : members) {
+            if (member.getName() != null) {
+                membersByName.put(member.getName(), member);
+            }
+        }
+        Map<DockerRule, List<DockerRule>> dependencies = new HashMap<>();
+        for (DockerRule member : members) {
+            List<DockerRule> memberDependencies = new ArrayList<>(member.getDynamicLinkTargets());
+            for (String staticLink : member.getStaticLinks()) {
+                DockerRule target = membersByName.get(staticLink.split(":")[0]);
+                if (target != null) {
+                    memberDependencies.add(target);
+                }
+            }
+            dependencies.put(member, memberDependencies);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Split nodes into levels so every node depends only on nodes from earlier levels.
+     * Dependencies outside given nodes are ignored.
+     */
+    static <T> List<List<T>> dependencyLevels(List<T> nodes, Map<T, List<T>> dependencies) {
+        Map<T, Integer> nodeLevels = new LinkedHashMap<>();
+        for (T node : nodes) {
+            nodeLevels.put(node, null);
+        }
+        List<List<T>> levels = new ArrayList<>();
+        int assigned = 0;
+        while (assigned < nodes.size()) {
+            List<T> level = new ArrayList<>();
+            for (T node : nodes) {
+                if (nodeLevels.get(node) == null && dependenciesAssigned(node, dependencies, nodeLevels)) {
+                    level.add(node);
+                }
+            }
+            if (level.isEmpty()) {
+                throw new InvalidParameter("circular links between group containers");
+            }
+            for (T node : level) {
+                nodeLevels.put(node, levels.size());
+            }
+            levels.add(level);
+            assigned += level.size();
+        }
+        return levels;
+    }
+
+    private static <T> boolean dependenciesAssigned(T node, Map<T, List<T>> dependencies, Map<T, Integer> nodeLevels) {
+        List<T> nodeDependencies = dependencies.get(node);
+        if (nodeDependencies == null) {
+            return true;
+        }
+        for (T dependency : nodeDependencies) {
+            // dependency outside of group or dependency not yet assigned to any level (including current)
+            if (nodeLevels.containsKey(dependency) && nodeLevels.get(dependency) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,349 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.ClassRule;
+import org.junit.rules.ExternalResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+/**
+ * Pool of started (and ready - after all wait conditions were met) containers
+ * of the same configuration. Should be used as {@link ClassRule} together with
+ * {@link PooledDockerRule} obtained with {@link #rule()}:
+ * <pre>
+ *  &#064;ClassRule
+ *  public static DockerRulePool pool = DockerRulePool.of(DockerRule.builder()
+ *          .imageName("nginx")
+ *          .waitFor(WaitFor.httpPing(80)), 2);
+ *
+ *  &#064;Rule
+ *  public PooledDockerRule container = pool.rule();
+ *
+ *  &#064;Test
+ *  public void test() {
+ *      String port = container.get().getExposedContainerPort("80");
+ *      ...
+ *  }
+ * </pre>
+ * Container taken from pool is, after test, either returned to pool (when
+ * {@link ResetHook} was defined and container was reset successfully) or discarded
+ * and replaced with new one started in background.
+ */
+public class DockerRulePool extends ExternalResource {
+
+    private static Logger log = LoggerFactory.getLogger(DockerRulePool.class);
+
+    /** How much longer than start condition timeout checkout waits for container started in background [s]. */
+    private static final int REFILL_WAIT_MARGIN_SECONDS = 30;
+    private static final int REFILL_WAIT_SLICE_MS = 100;
+
+    private final DockerRuleBuilder ruleBuilder;
+    private final int size;
+    private ResetHook resetHook;
+
+    private final BlockingQueue<DockerRule> ready = new LinkedBlockingQueue<>();
+    private final Set<DockerRule> started = new HashSet<>();
+    private ExecutorService refillExecutor;
+
+    private volatile boolean closed = true;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger refills = new AtomicInteger();
+    private final AtomicLong refillTimeMs = new AtomicLong();
+    private final AtomicLong onDemandStartTimeMs = new AtomicLong();
+
+    /** Containers being started in background (guarded by <code>this</code> together with checks of {@link #ready} size). */
+    private int refilling = 0;
+
+    DockerRulePool(DockerRuleBuilder ruleBuilder, int size) {
+        if (size < 1) {
+            throw new InvalidParameter(String.format("pool size must be positive (is %d)", size));
+        }
+        if (StringUtils.isNotBlank(ruleBuilder.name())) {
+            throw new InvalidParameter(String.format("pooled containers cannot be named (name '%s' given)", ruleBuilder.name()));
+        }
+        if (ruleBuilder.reuseContainerTtl() > 0) {
+            throw new InvalidParameter("pooled containers cannot be used in reuse mode");
+        }
+        this.ruleBuilder = ruleBuilder;
+        this.size = size;
+    }
+
+    /**
+     * Create pool.
+     *
+     * @param ruleBuilder Configuration of pooled containers.
+     * @param size Number of containers kept started.
+     */
+    public static DockerRulePool of(DockerRuleBuilder ruleBuilder, int size) {
+        return new DockerRulePool(ruleBuilder, size);
+    }
+
+    /**
+     * Define hook resetting container state after test so container can be returned to pool.
+     * Without hook every container is discarded after single usage.
+     */
+    public DockerRulePool resetHook(ResetHook resetHook) {
+        this.resetHook = resetHook;
+        return this;
+    }
+
+    /**
+     * Rule taking container from this pool before test and returning it after.
+     */
+    public PooledDockerRule rule() {
+        return new PooledDockerRule(this);
+    }
+
+    /**
+     * Start filling pool in background.
+     */
+    @Override
+    protected void before() throws Throwable {
+        refillExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()//
+                .setNameFormat("dockerpool-refill-%d")//
+                .setDaemon(true)//
+                .build());
+        closed = false;
+        for (int i = 0; i < size; i++) {
+            refillAsync(null);
+        }
+    }
+
+    /**
+     * Stop all pooled containers.
+     */
+    @Override
+    protected void after() {
+        closed = true;
+        refillExecutor.shutdown();
+        try {
+            refillExecutor.awaitTermination(ruleBuilder.waitForSeconds() + 60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.warn("interrupted", e);
+        }
+        ready.clear();
+        Set<DockerRule> toStop;
+        synchronized (started) {
+            toStop = new HashSet<>(started);
+            started.clear();
+        }
+        for (DockerRule rule : toStop) {
+            stopQuietly(rule);
+        }
+        log.info("pool closed, hits: {}, misses: {}, refills: {}, average refill time: {}ms, average on demand start time: {}ms",
+                hits, misses, refills, getAverageRefillMillis(), getAverageOnDemandStartMillis());
+    }
+
+    /**
+     * Take ready container from pool. When pool is empty, but containers are being started
+     * in background, waits for one of them. Otherwise container is started on caller thread.
+     */
+    DockerRule checkout() throws Throwable {
+        DockerRule rule = ready.poll();
+        if (rule == null && isRefilling()) {
+            log.debug("pool empty, waiting for container started in background");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ruleBuilder.waitForSeconds() + REFILL_WAIT_MARGIN_SECONDS);
+            // background start may fail, so do not wait longer than it is in progress
+            while (rule == null && isRefilling() && System.nanoTime() < deadline) {
+                rule = ready.poll(REFILL_WAIT_SLICE_MS, TimeUnit.MILLISECONDS);
+            }
+            if (rule == null) {
+                rule = ready.poll();
+            }
+        }
+        if (rule != null) {
+            hits.incrementAndGet();
+            return rule;
+        }
+        misses.incrementAndGet();
+        log.debug("pool empty, starting container on demand");
+        long start = System.currentTimeMillis();
+        rule = startNew();
+        onDemandStartTimeMs.addAndGet(System.currentTimeMillis() - start);
+        return rule;
+    }
+
+    /**
+     * Return container after usage. It is either reset and returned to pool or discarded
+     * and replaced with new one in background. Pool never keeps (ready and being started)
+     * more than its size - containers above it (started on demand) are discarded.
+     */
+    void checkin(DockerRule rule) {
+        if (closed) {
+            discard(rule);
+            return;
+        }
+        boolean reset = resetHook != null && reset(rule);
+        synchronized (this) {
+            boolean full = ready.size() + refilling >= size;
+            if (reset && !full) {
+                ready.offer(rule);
+            } else if (!full) {
+                refillAsync(rule);
+            } else {
+                log.debug("pool full, {} discarded", rule.getContainerId());
+                discardAsync(rule);
+            }
+        }
+    }
+
+    private synchronized boolean isRefilling() {
+        return refilling > 0;
+    }
+
+    private boolean reset(DockerRule rule) {
+        try {
+            return resetHook.reset(rule);
+        } catch (Exception e) {
+            log.warn("{} reset failed, container will be discarded", rule.getContainerId(), e);
+            return false;
+        }
+    }
+
+    private void discard(DockerRule rule) {
+        synchronized (started) {
+            started.remove(rule);
+        }
+        stopQuietly(rule);
+    }
+
+    private void discardAsync(final DockerRule rule) {
+        refillExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                discard(rule);
+            }
+        });
+    }
+
+    /**
+     * Start new container in background.
+     *
+     * @param replaced Container to discard first (may be <code>null</code>).
+     */
+    private synchronized void refillAsync(final DockerRule replaced) {
+        refilling++;
+        refillExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (replaced != null) {
+                    discard(replaced);
+                }
+                try {
+                    long start = System.currentTimeMillis();
+                    DockerRule rule = startNew();
+                    refills.incrementAndGet();
+                    refillTimeMs.addAndGet(System.currentTimeMillis() - start);
+                    if (closed) {
+                        refilled(null);
+                        discard(rule);
+                    } else {
+                        refilled(rule);
+                    }
+                } catch (Throwable e) {
+                    refilled(null);
+                    log.warn("pool refill failed", e);
+                }
+            }
+        });
+    }
+
+    private synchronized void refilled(DockerRule rule) {
+        refilling--;
+        if (rule != null) {
+            ready.offer(rule);
+        }
+    }
+
+    private DockerRule startNew() throws Throwable {
+        DockerRule rule = ruleBuilder.build();
+        rule.before();
+        synchronized (started) {
+            started.add(rule);
+        }
+        return rule;
+    }
+
+    private static void stopQuietly(DockerRule rule) {
+        try {
+            rule.after();
+        } catch (RuntimeException e) {
+            log.warn("{} stop failed", rule.getContainerId(), e);
+        }
+    }
+
+    /**
+     * Number of ready containers waiting in pool.
+     */
+    public int getAvailable() {
+        return ready.size();
+    }
+
+    /**
+     * Number of checkouts served with ready container.
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of checkouts which had to start container on demand.
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of containers started in background (to fill pool or replace discarded ones).
+     */
+    public int getRefills() {
+        return refills.get();
+    }
+
+    /**
+     * Average time of starting container in background (including wait for start conditions) [ms].
+     */
+    public long getAverageRefillMillis() {
+        int count = refills.get();
+        return count > 0 ? refillTimeMs.get() / count : 0;
+    }
+
+    /**
+     * Average time of starting container on demand, when pool was empty (including wait for start conditions) [ms].
+     * This is how long tests waited for container on {@link #getMisses() misses}.
+     */
+    public long getAverageOnDemandStartMillis() {
+        int count = misses.get();
+        return count > 0 ? onDemandStartTimeMs.get() / count : 0;
+    }
+
+    /**
+     * Resets pooled container state after test.
+     */
+    public interface ResetHook {
+
+        /**
+         * Bring container back to initial state.
+         *
+         * @return <code>true</code> when container can be returned to pool, <code>false</code> if it should be discarded.
+         */
+        boolean reset(DockerRule container) throws Exception;
+    }
+
+}
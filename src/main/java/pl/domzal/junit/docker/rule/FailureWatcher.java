@@ -0,0 +1,30 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.List;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+/**
+ * Marks containers as used by failed test. Needed for containers used as {@link ClassRule} -
+ * failures of single tests are reported by runner and never reach class level rules, so
+ * container can learn about them only through test level {@link Rule}.
+ */
+class FailureWatcher extends TestWatcher {
+
+    private final List<DockerRule> containers;
+
+    FailureWatcher(List<DockerRule> containers) {
+        this.containers = containers;
+    }
+
+    @Override
+    protected void failed(Throwable e, Description description) {
+        for (DockerRule container : containers) {
+            container.markTestFailed();
+        }
+    }
+
+}
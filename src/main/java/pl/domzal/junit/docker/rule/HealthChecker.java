@@ -0,0 +1,93 @@
+package pl.domzal.junit.docker.rule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.ContainerState;
+
+import pl.domzal.junit.docker.rule.ex.ContainerUnhealthyException;
+import pl.domzal.junit.docker.rule.wait.NotifyingStartConditionCheck;
+
+/**
+ * Checks container health status reported by docker HEALTHCHECK. Status is taken from
+ * docker events (waiting code is notified on every status change) or - when container
+ * state is not tracked - inspected.
+ */
+class HealthChecker implements NotifyingStartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(HealthChecker.class);
+
+    static final String HEALTHY = "healthy";
+    static final String UNHEALTHY = "unhealthy";
+
+    private final DockerRule rule;
+    private final ContainerEvents containerEvents;
+    private final String containerId;
+
+    private Runnable changeListener;
+
+    HealthChecker(DockerRule rule) {
+        this.rule = rule;
+        this.containerEvents = rule.getContainerEvents();
+        this.containerId = rule.getContainerId();
+    }
+
+    @Override
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+        containerEvents.addListener(containerId, changeListener);
+    }
+
+    @Override
+    public boolean isChangeNotified() {
+        // status changes of containers not tracked (or no longer tracked) are not notified
+        return containerEvents.isTracked(containerId);
+    }
+
+    @Override
+    public boolean check() {
+        String health;
+        boolean exited;
+        if (containerEvents.isTracked(containerId)) {
+            health = containerEvents.health(containerId);
+            exited = (containerEvents.exitCode(containerId) != null);
+        } else {
+            ContainerState state = inspectState();
+            health = (state.health() != null ? state.health().status() : null);
+            exited = !state.running();
+        }
+        log.trace("{} health: {}, exited: {}", containerId, health, exited);
+        if (UNHEALTHY.equals(health)) {
+            throw new ContainerUnhealthyException(String.format("container %s reported unhealthy status", containerId));
+        }
+        if (HEALTHY.equals(health)) {
+            return true;
+        }
+        if (exited) {
+            throw new ContainerUnhealthyException(String.format("container %s exited before becoming healthy", containerId));
+        }
+        return false;
+    }
+
+    private ContainerState inspectState() {
+        try {
+            return rule.getDockerClient().inspectContainer(containerId).state();
+        } catch (DockerException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "container healthy status";
+    }
+
+    @Override
+    public void after() {
+        if (changeListener != null) {
+            containerEvents.removeListener(containerId, changeListener);
+        }
+    }
+
+}
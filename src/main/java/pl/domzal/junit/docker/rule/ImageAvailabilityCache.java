@@ -0,0 +1,76 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.ImageNotFoundException;
+
+/**
+ * JVM-wide cache of image presence on docker host. Image is looked up
+ * with single {@link DockerClient#inspectImage(String)} call on first
+ * question and remembered for the rest of the run.
+ */
+class ImageAvailabilityCache {
+
+    private static Logger log = LoggerFactory.getLogger(ImageAvailabilityCache.class);
+
+    private static final ImageAvailabilityCache INSTANCE = new ImageAvailabilityCache();
+
+    private final ConcurrentMap<String, Boolean> availability = new ConcurrentHashMap<>();
+
+    static ImageAvailabilityCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Is image present on docker host client is connected to?
+     *
+     * @param imageNameWithTag Image name (with tag).
+     */
+    boolean isAvailable(DockerClient dockerClient, String imageNameWithTag) throws DockerException, InterruptedException {
+        String key = key(dockerClient, imageNameWithTag);
+        Boolean cached = availability.get(key);
+        if (cached != null) {
+            log.trace("image '{}' {} (cached)", imageNameWithTag, cached ? "found" : "not found");
+            return cached;
+        }
+        boolean available = inspect(dockerClient, imageNameWithTag);
+        availability.put(key, available);
+        return available;
+    }
+
+    /**
+     * Mark image as present (after successful pull).
+     */
+    void markAvailable(DockerClient dockerClient, String imageNameWithTag) {
+        availability.put(key(dockerClient, imageNameWithTag), true);
+    }
+
+    /**
+     * Forget what is known about image so next {@link #isAvailable(DockerClient, String)} will ask docker host again.
+     */
+    void invalidate(DockerClient dockerClient, String imageNameWithTag) {
+        availability.remove(key(dockerClient, imageNameWithTag));
+    }
+
+    private boolean inspect(DockerClient dockerClient, String imageNameWithTag) throws DockerException, InterruptedException {
+        try {
+            dockerClient.inspectImage(imageNameWithTag);
+            log.debug("image '{}' found", imageNameWithTag);
+            return true;
+        } catch (ImageNotFoundException e) {
+            log.debug("image '{}' not found", imageNameWithTag);
+            return false;
+        }
+    }
+
+    private static String key(DockerClient dockerClient, String imageNameWithTag) {
+        return dockerClient.getHost() + "|" + imageNameWithTag;
+    }
+
+}
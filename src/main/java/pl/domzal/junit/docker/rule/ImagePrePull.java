@@ -0,0 +1,136 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.ClassRule;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerCertificateException;
+import com.spotify.docker.client.exceptions.DockerException;
+
+/**
+ * Suite level {@link ClassRule} pulling images declared with {@link DockerImages}
+ * on suite test classes (and images given explicitly) in background, before first test class
+ * is run. Rules created later join pulls still in progress instead of starting their own.
+ * <pre>
+ *  &#064;RunWith(Suite.class)
+ *  &#064;Suite.SuiteClasses({ FirstTest.class, SecondTest.class })
+ *  public class AllTests {
+ *      &#064;ClassRule
+ *      public static ImagePrePull prePull = new ImagePrePull("postgres:9.6");
+ *  }
+ * </pre>
+ * Image pull failures are only logged here - they will be reported by rule which needs image.
+ */
+public class ImagePrePull implements TestRule {
+
+    private static Logger log = LoggerFactory.getLogger(ImagePrePull.class);
+
+    private final List<String> images;
+
+    /**
+     * @param images Images to pull in addition to ones declared with {@link DockerImages} on suite test classes.
+     */
+    public ImagePrePull(String... images) {
+        this.images = Arrays.asList(images);
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        Set<String> suiteImages = new LinkedHashSet<>();
+        for (String image : images) {
+            suiteImages.add(DockerRule.imageNameWithTag(image));
+        }
+        suiteImages.addAll(collectImages(description));
+        pullInBackground(suiteImages);
+        return base;
+    }
+
+    /**
+     * Images declared with {@link DockerImages} on all test classes of given description tree.
+     */
+    static Set<String> collectImages(Description description) {
+        Set<String> images = new LinkedHashSet<>();
+        collectImages(description, images);
+        return images;
+    }
+
+    private static void collectImages(Description description, Set<String> images) {
+        Class<?> testClass = description.getTestClass();
+        if (testClass != null) {
+            DockerImages declaredImages = testClass.getAnnotation(DockerImages.class);
+            if (declaredImages != null) {
+                for (String image : declaredImages.value()) {
+                    images.add(DockerRule.imageNameWithTag(image));
+                }
+            }
+        }
+        for (Description child : description.getChildren()) {
+            collectImages(child, images);
+        }
+    }
+
+    /**
+     * Start pulling missing images in background. Returns immediately.
+     */
+    static void pullInBackground(final Collection<String> imagesWithTag) {
+        if (imagesWithTag.isEmpty()) {
+            return;
+        }
+        Thread prePull = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pullMissing(imagesWithTag);
+            }
+        }, "image-prepull");
+        prePull.setDaemon(true);
+        prePull.start();
+    }
+
+    private static void pullMissing(Collection<String> imagesWithTag) {
+        log.info("pre-pull of images {} started", imagesWithTag);
+        DockerClientRegistry clientRegistry = DockerClientRegistry.instance();
+        DockerClient dockerClient;
+        try {
+            dockerClient = clientRegistry.acquire();
+        } catch (DockerCertificateException | DockerException | InterruptedException e) {
+            log.warn("pre-pull of images {} failed - unable to connect docker", imagesWithTag, e);
+            return;
+        }
+        try {
+            List<Future<Void>> pulls = new ArrayList<>();
+            for (String imageWithTag : imagesWithTag) {
+                if (!ImageAvailabilityCache.instance().isAvailable(dockerClient, imageWithTag)) {
+                    pulls.add(ImagePuller.instance().pullAsync(dockerClient, imageWithTag));
+                }
+            }
+            for (Future<Void> pull : pulls) {
+                try {
+                    pull.get();
+                } catch (ExecutionException e) {
+                    log.warn("image pre-pull failed", e.getCause());
+                }
+            }
+            log.info("pre-pull of images {} finished", imagesWithTag);
+        } catch (DockerException e) {
+            log.warn("pre-pull of images {} failed", imagesWithTag, e);
+        } catch (InterruptedException e) {
+            log.warn("pre-pull of images {} interrupted", imagesWithTag);
+        } finally {
+            clientRegistry.release(dockerClient);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package pl.domzal.junit.docker.rule;
+
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * JUnit {@link RunListener} pulling images declared with {@link DockerImages} on all
+ * test classes of the run in background, as soon as test run starts.
+ * <p>
+ * Example surefire configuration:
+ * <pre>
+ *  &lt;configuration&gt;
+ *      &lt;properties&gt;
+ *          &lt;property&gt;
+ *              &lt;name&gt;listener&lt;/name&gt;
+ *              &lt;value&gt;pl.domzal.junit.docker.rule.ImagePrePullListener&lt;/value&gt;
+ *          &lt;/property&gt;
+ *      &lt;/properties&gt;
+ *  &lt;/configuration&gt;
+ * </pre>
+ */
+public class ImagePrePullListener extends RunListener {
+
+    @Override
+    public void testRunStarted(Description description) throws Exception {
+        // some runners do not pass run description at all
+        if (description != null) {
+            ImagePrePull.pullInBackground(ImagePrePull.collectImages(description));
+        }
+    }
+
+}
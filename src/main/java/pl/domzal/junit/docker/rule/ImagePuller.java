@@ -0,0 +1,125 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+
+/**
+ * JVM-wide image pull coordinator.
+ * <p>
+ * Concurrent requests for the same image (on the same docker host) join single pull in progress.
+ * Pulls of different images run in parallel, up to number of pulls specified with
+ * system property {@value #MAX_PARALLEL_PULLS_PROPERTY} (default {@value #DEFAULT_MAX_PARALLEL_PULLS}).
+ */
+class ImagePuller {
+
+    private static Logger log = LoggerFactory.getLogger(ImagePuller.class);
+
+    static final String MAX_PARALLEL_PULLS_PROPERTY = "junit.docker.rule.maxParallelPulls";
+    static final int DEFAULT_MAX_PARALLEL_PULLS = 4;
+
+    private static final ImagePuller INSTANCE = new ImagePuller(Math.max(1, Integer.getInteger(MAX_PARALLEL_PULLS_PROPERTY, DEFAULT_MAX_PARALLEL_PULLS)));
+
+    private final ConcurrentMap<String, PullTask> pullsInProgress = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    ImagePuller(int maxParallelPulls) {
+        this.executor = Executors.newFixedThreadPool(maxParallelPulls, new ThreadFactoryBuilder()//
+                .setNameFormat("image-pull-%d")//
+                .setDaemon(true)//
+                .build());
+    }
+
+    static ImagePuller instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pull image and wait for pull completion.
+     */
+    void pull(DockerClient dockerClient, String imageNameWithTag) throws DockerException, InterruptedException {
+        try {
+            pullAsync(dockerClient, imageNameWithTag).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DockerException) {
+                throw (DockerException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw new IllegalStateException(String.format("Pull of '%s' interrupted", imageNameWithTag), cause);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Start image pull in background or join pull of the same image already in progress.
+     */
+    Future<Void> pullAsync(final DockerClient dockerClient, final String imageNameWithTag) {
+        String key = dockerClient.getHost() + "|" + imageNameWithTag;
+        PullTask newPull = new PullTask(key, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                log.info("pulling image '{}'", imageNameWithTag);
+                dockerClient.pull(imageNameWithTag, new PullProgressLogger(imageNameWithTag));
+                ImageAvailabilityCache.instance().markAvailable(dockerClient, imageNameWithTag);
+                log.info("image '{}' pulled", imageNameWithTag);
+                return null;
+            }
+        });
+        PullTask pullInProgress = pullsInProgress.putIfAbsent(key, newPull);
+        if (pullInProgress != null) {
+            log.debug("joining pull of '{}' already in progress", imageNameWithTag);
+            return pullInProgress;
+        }
+        executor.execute(newPull);
+        return newPull;
+    }
+
+    private class PullTask extends FutureTask<Void> {
+
+        private final String key;
+
+        PullTask(String key, Callable<Void> pull) {
+            super(pull);
+            this.key = key;
+        }
+
+        /**
+         * Pull stops being joinable before its result is visible to waiters,
+         * so request made right after completed pull starts new one.
+         */
+        @Override
+        protected void set(Void result) {
+            pullsInProgress.remove(key, this);
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable failure) {
+            pullsInProgress.remove(key, this);
+            super.setException(failure);
+        }
+
+        @Override
+        protected void done() {
+            // cancelled pull
+            pullsInProgress.remove(key, this);
+        }
+    }
+
+}
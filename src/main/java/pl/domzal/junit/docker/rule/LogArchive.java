@@ -0,0 +1,137 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.GZIPOutputStream;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+/**
+ * Bounded, compressed buffer of container log lines written to file only when needed (test failed).
+ * Lines are collected in chunks of {@value #CHUNK_SIZE} bytes, every full chunk is compressed to
+ * separate gzip member. When compressed chunks exceed size limit oldest ones are dropped. Written file
+ * is concatenation of gzip members - regular <code>.gz</code> file readable with <code>gunzip</code>
+ * or {@link java.util.zip.GZIPInputStream}.
+ * <p>
+ * Archives are written to {@value #DIR_PROPERTY} directory (default {@value #DEFAULT_DIR}).
+ */
+class LogArchive implements LineListener {
+
+    static final String DIR_PROPERTY = "junit.docker.rule.logArchiveDir";
+    static final String DEFAULT_DIR = "target/docker-logs";
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final long maxCompressedSize;
+
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private long chunksSize = 0;
+    private long droppedLines = 0;
+
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream(CHUNK_SIZE);
+    private int currentLines = 0;
+
+    /**
+     * @param maxCompressedSize Max size (bytes) of compressed log kept - oldest lines are dropped when exceeded.
+     */
+    LogArchive(long maxCompressedSize) {
+        this.maxCompressedSize = maxCompressedSize;
+    }
+
+    /**
+     * Archive file for given test class and container.
+     */
+    static File archiveFile(String testClassName, String containerName) {
+        File dir = new File(System.getProperty(DIR_PROPERTY, DEFAULT_DIR), fileName(testClassName));
+        return new File(dir, fileName(containerName) + ".log.gz");
+    }
+
+    private static String fileName(String name) {
+        return name.replaceAll("[^\\w.-]", "_");
+    }
+
+    @Override
+    public synchronized void nextLine(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        current.write(bytes, 0, bytes.length);
+        currentLines++;
+        if (current.size() >= CHUNK_SIZE) {
+            chunks.addLast(new Chunk(gzip(current.toByteArray()), currentLines));
+            chunksSize += chunks.getLast().data.length;
+            current.reset();
+            currentLines = 0;
+            // always keep last chunk
+            while (chunksSize > maxCompressedSize && chunks.size() > 1) {
+                Chunk oldest = chunks.removeFirst();
+                chunksSize -= oldest.data.length;
+                droppedLines += oldest.lines;
+            }
+        }
+    }
+
+    /**
+     * Number of (oldest) lines dropped because of size limit.
+     */
+    synchronized long droppedLines() {
+        return droppedLines;
+    }
+
+    /**
+     * Write buffered log to given file (parent directories are created).
+     */
+    synchronized void writeTo(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("unable to create directory " + dir);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (droppedLines > 0) {
+                out.write(gzip(String.format("[%d older log lines dropped]\n", droppedLines).getBytes(StandardCharsets.UTF_8)));
+            }
+            for (Chunk chunk : chunks) {
+                out.write(chunk.data);
+            }
+            if (current.size() > 0) {
+                out.write(gzip(current.toByteArray()));
+            }
+        }
+    }
+
+    /**
+     * Drop buffered log.
+     */
+    synchronized void clear() {
+        chunks.clear();
+        chunksSize = 0;
+        current.reset();
+        currentLines = 0;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to compress log", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static class Chunk {
+
+        private final byte[] data;
+        private final int lines;
+
+        Chunk(byte[] data, int lines) {
+            this.data = data;
+            this.lines = lines;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.List;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+/**
+ * Append-only capture of container log lines (stdout and stderr combined).
+ * Line indexes are counted from 0 and limited to captured lines range.
+ */
+interface LogCapture extends LineListener {
+
+    /**
+     * Number of lines captured so far.
+     */
+    int lineCount();
+
+    /**
+     * Whole captured log.
+     */
+    String getLog();
+
+    /**
+     * Captured log starting with given line (inclusive) up to given line (exclusive).
+     */
+    String getLog(int fromLine, int toLine);
+
+    /**
+     * Captured lines (without line end) starting with given line (inclusive) up to given line (exclusive).
+     */
+    List<String> getLines(int fromLine, int toLine);
+
+    /**
+     * Whether captured log contains given text.
+     */
+    boolean contains(String text);
+
+    /**
+     * Release resources held by capture. Capture remains readable afterwards, but may keep only last part of log.
+     *
+     * @param keep Keep log stored outside of memory for post mortem analysis.
+     */
+    void release(boolean keep);
+
+}
@@ -0,0 +1,182 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * JVM-wide pool of container log reading threads shared by all rules.
+ * <p>
+ * Every followed container log occupies one thread (docker client reads are blocking) for
+ * container lifetime. Threads are created on demand up to {@value #MAX_THREADS_PROPERTY}
+ * (default {@value #DEFAULT_MAX_THREADS}, zero or less means no limit) and dropped after
+ * {@value #KEEP_ALIVE_SECONDS}s of idleness. Logs of containers started above the limit are read
+ * only when reading of some other container log ends - except logs container start waits for
+ * (see {@link #submitAwaited(Callable)}), which are never queued.
+ * <p>
+ * Thread count, active and queued readers are collected for diagnostics (queued readers are logged).
+ */
+public class LogReaders {
+
+    private static Logger log = LoggerFactory.getLogger(LogReaders.class);
+
+    static final String MAX_THREADS_PROPERTY = "junit.docker.rule.maxLogReaderThreads";
+    static final int DEFAULT_MAX_THREADS = 64;
+
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final LogReaders INSTANCE = new LogReaders(Integer.getInteger(MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS));
+
+    private final ThreadPoolExecutor executor;
+    private final int maxThreads;
+    private final ThreadFactory overflowThreadFactory = new ThreadFactoryBuilder()//
+            .setNameFormat("dockerlog-overflow-%d")//
+            .setDaemon(true)//
+            .build();
+
+    /** Readers submitted to pool and not finished yet (running or queued). */
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    /** Readers running above thread limit. */
+    private final AtomicInteger overflowCount = new AtomicInteger();
+
+    /**
+     * @param maxThreads Thread limit (zero or less means no limit).
+     */
+    LogReaders(int maxThreads) {
+        this.maxThreads = maxThreads;
+        int corePoolSize;
+        int maxPoolSize;
+        BlockingQueue<Runnable> queue;
+        if (maxThreads > 0) {
+            // with unbounded queue pool never grows above core size, so core size is the limit
+            corePoolSize = maxThreads;
+            maxPoolSize = maxThreads;
+            queue = new LinkedBlockingQueue<>();
+        } else {
+            corePoolSize = 0;
+            maxPoolSize = Integer.MAX_VALUE;
+            queue = new SynchronousQueue<>();
+        }
+        this.executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,//
+                new ThreadFactoryBuilder()//
+                        .setNameFormat("dockerlog-%d")//
+                        .setDaemon(true)//
+                        .build());
+        if (maxThreads > 0) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Pool shared by all rules in JVM.
+     */
+    public static LogReaders instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule log reading task (queued when thread limit is reached).
+     */
+    synchronized Future<Void> submit(Callable<Void> reader) {
+        ReaderTask task = new ReaderTask(reader, pooledCount);
+        executor.execute(task);
+        if (maxThreads > 0 && pooledCount.get() > maxThreads) {
+            log.info("log reader thread limit ({}) reached, log reading queued - {}", maxThreads, this);
+        } else {
+            logState();
+        }
+        return task;
+    }
+
+    /**
+     * Schedule reading of log container start waits for (like {@link WaitFor#logMessage(String)}).
+     * Such log is never queued - when thread limit is reached it is read on additional thread
+     * created outside of pool, so waiting for container start does not depend on other containers.
+     */
+    synchronized Future<Void> submitAwaited(Callable<Void> reader) {
+        if (maxThreads <= 0 || pooledCount.get() < maxThreads) {
+            return submit(reader);
+        }
+        ReaderTask task = new ReaderTask(reader, overflowCount);
+        overflowThreadFactory.newThread(task).start();
+        log.info("log reader thread limit ({}) reached, awaited log read on additional thread - {}", maxThreads, this);
+        return task;
+    }
+
+    /**
+     * Reader counted (by given counter) until finished or cancelled - cancelled reader may still wait in queue.
+     */
+    private static class ReaderTask extends FutureTask<Void> {
+
+        private final AtomicInteger counter;
+
+        ReaderTask(Callable<Void> reader, AtomicInteger counter) {
+            super(reader);
+            this.counter = counter;
+            counter.incrementAndGet();
+        }
+
+        @Override
+        protected void done() {
+            counter.decrementAndGet();
+        }
+    }
+
+    private void logState() {
+        log.debug("{}", this);
+    }
+
+    /**
+     * Number of threads in pool.
+     */
+    public int threadCount() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * Number of logs being read in pool.
+     */
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Number of logs waiting for free thread.
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Number of awaited logs being read on threads outside of pool (thread limit was reached).
+     */
+    public int overflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Largest number of threads that have ever simultaneously been in the pool.
+     */
+    public int peakThreadCount() {
+        return executor.getLargestPoolSize();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("log readers: %d threads (peak %d), %d active, %d queued, %d above limit",
+                threadCount(), peakThreadCount(), activeCount(), queueDepth(), overflowCount());
+    }
+
+}
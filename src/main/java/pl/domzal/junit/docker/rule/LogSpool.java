@@ -0,0 +1,348 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link LogCapture} spooling log to file, so heap usage does not grow with log volume.
+ * Lines are appended (UTF-8, each ended with new line) through {@link FileChannel} and
+ * read, searched and iterated through memory-mapped view of the file. Only offset of every
+ * {@value #INDEX_INTERVAL}-th line is kept in memory.
+ * <p>
+ * When spool is released, last lines of log (up to {@value #DEFAULT_RELEASED_TAIL_BYTES} bytes) are copied
+ * to memory and remain readable - earlier lines are no longer available then.
+ */
+class LogSpool implements LogCapture {
+
+    private static Logger log = LoggerFactory.getLogger(LogSpool.class);
+
+    static final int INDEX_INTERVAL = 64;
+    static final int DEFAULT_RELEASED_TAIL_BYTES = 1024 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_INDEX_CAPACITY = 256;
+    /** Max size of file region mapped at once while scanning. */
+    private static final int SCAN_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    private final int releasedTailBytes;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+    /** Size of spooled log (including bytes still in write buffer). */
+    private long size = 0;
+    /** Offset of every {@value #INDEX_INTERVAL}-th line. */
+    private long[] index = new long[INITIAL_INDEX_CAPACITY];
+    private int lineCount = 0;
+
+    private boolean writeFailed = false;
+    private boolean released = false;
+
+    /** Log tail readable after release. */
+    private MemoryLogCapture releasedTail;
+    /** Number of first line of released tail. */
+    private int releasedTailFirstLine;
+
+    LogSpool(File file) throws IOException {
+        this(file, DEFAULT_RELEASED_TAIL_BYTES);
+    }
+
+    /**
+     * @param releasedTailBytes Max size of log tail kept readable after release.
+     */
+    LogSpool(File file, int releasedTailBytes) throws IOException {
+        this.file = file;
+        this.releasedTailBytes = releasedTailBytes;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Spool to new temporary file.
+     */
+    static LogSpool create(String containerShortId) throws IOException {
+        return new LogSpool(File.createTempFile("docker-" + containerShortId + "-", ".log"));
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void nextLine(String line) {
+        if (released || writeFailed) {
+            return;
+        }
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            if (bytes.length > writeBuffer.remaining()) {
+                flush();
+            }
+            if (bytes.length > writeBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes), size);
+            } else {
+                writeBuffer.put(bytes);
+            }
+        } catch (IOException e) {
+            log.warn("unable to write log spool {}, further lines are not captured", file, e);
+            writeFailed = true;
+            return;
+        }
+        if (lineCount % INDEX_INTERVAL == 0) {
+            int indexPos = lineCount / INDEX_INTERVAL;
+            if (indexPos == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[indexPos] = size;
+        }
+        size += bytes.length;
+        lineCount++;
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        writeFully(writeBuffer, size - writeBuffer.remaining());
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public synchronized int lineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public synchronized String getLog() {
+        if (released) {
+            return releasedTail.getLog();
+        }
+        return read(0, readableSize());
+    }
+
+    @Override
+    public synchronized String getLog(int fromLine, int toLine) {
+        if (released) {
+            return releasedTail.getLog(fromLine - releasedTailFirstLine, toLine - releasedTailFirstLine);
+        }
+        int from = limit(fromLine);
+        int to = limit(toLine);
+        if (from >= to) {
+            return "";
+        }
+        readableSize();
+        return read(lineStart(from), lineStart(to));
+    }
+
+    @Override
+    public synchronized List<String> getLines(int fromLine, int toLine) {
+        if (released) {
+            return releasedTail.getLines(fromLine - releasedTailFirstLine, toLine - releasedTailFirstLine);
+        }
+        int from = limit(fromLine);
+        int to = limit(toLine);
+        List<String> lines = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) {
+            return lines;
+        }
+        readableSize();
+        long position = lineStart(from);
+        long end = lineStart(to);
+        while (position < end) {
+            MappedByteBuffer window = map(position, Math.min(end - position, SCAN_WINDOW_SIZE));
+            int lineStart = 0;
+            for (int i = 0; i < window.limit(); i++) {
+                if (window.get(i) == '\n') {
+                    lines.add(decode(window, lineStart, i));
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0) {
+                // single line longer than window
+                long lineEnd = skipLines(position, 1);
+                lines.add(read(position, lineEnd - 1));
+                position = lineEnd;
+            } else {
+                position += lineStart;
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public synchronized boolean contains(String text) {
+        if (released) {
+            return releasedTail.contains(text);
+        }
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        long end = readableSize();
+        if (pattern.length == 0) {
+            return true;
+        }
+        long position = 0;
+        while (end - position >= pattern.length) {
+            // windows overlap, so match crossing window border is not missed
+            MappedByteBuffer window = map(position, Math.min(end - position, Math.max(SCAN_WINDOW_SIZE, 2L * pattern.length)));
+            int last = window.limit() - pattern.length;
+            for (int i = 0; i <= last; i++) {
+                if (matches(window, i, pattern)) {
+                    return true;
+                }
+            }
+            position += last + 1;
+        }
+        return false;
+    }
+
+    private static boolean matches(ByteBuffer window, int offset, byte[] pattern) {
+        for (int j = 0; j < pattern.length; j++) {
+            if (window.get(offset + j) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void release(boolean keep) {
+        if (released) {
+            return;
+        }
+        releasedTail = new MemoryLogCapture();
+        try {
+            if (!writeFailed) {
+                flush();
+            }
+            copyReleasedTail();
+        } catch (IOException | IllegalStateException e) {
+            log.warn("unable to read log spool {}, log is no longer available", file, e);
+        }
+        released = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("unable to close log spool {}", file, e);
+        }
+        if (keep) {
+            log.info("container log kept in {}", file);
+        } else if (!file.delete()) {
+            log.debug("unable to delete log spool {}", file);
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Copy last lines of log (no more than {@link #releasedTailBytes}) to memory.
+     */
+    private void copyReleasedTail() {
+        long tailStart = Math.max(0, size - writeBuffer.position() - releasedTailBytes);
+        int indexed = (lineCount + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        int indexPos = 0;
+        while (indexPos + 1 < indexed && index[indexPos + 1] <= tailStart) {
+            indexPos++;
+        }
+        int line = indexPos * INDEX_INTERVAL;
+        long position = indexed > 0 ? index[indexPos] : 0;
+        while (line < lineCount && position < tailStart) {
+            position = skipLines(position, 1);
+            line++;
+        }
+        releasedTailFirstLine = line;
+        for (String tailLine : getLines(line, lineCount)) {
+            releasedTail.nextLine(tailLine);
+        }
+        if (line > 0) {
+            log.debug("{} first lines of log spool {} are no longer readable", line, file);
+        }
+    }
+
+    /**
+     * Make whole spooled log visible for reading.
+     *
+     * @return Size of spooled log.
+     */
+    private long readableSize() {
+        if (!writeFailed && writeBuffer.position() > 0) {
+            try {
+                flush();
+            } catch (IOException e) {
+                log.warn("unable to write log spool {}, further lines are not captured", file, e);
+                writeFailed = true;
+            }
+        }
+        return size - writeBuffer.position();
+    }
+
+    /** Offset of given line (or end of log for line past the last one). */
+    private long lineStart(int line) {
+        if (line >= lineCount) {
+            return size;
+        }
+        long indexed = index[line / INDEX_INTERVAL];
+        return skipLines(indexed, line % INDEX_INTERVAL);
+    }
+
+    /** Offset after given number of lines starting at given offset. */
+    private long skipLines(long position, int lines) {
+        while (lines > 0) {
+            MappedByteBuffer window = map(position, Math.min(size - position, SCAN_WINDOW_SIZE));
+            if (window.limit() == 0) {
+                break;
+            }
+            int i = 0;
+            while (lines > 0 && i < window.limit()) {
+                if (window.get(i++) == '\n') {
+                    lines--;
+                }
+            }
+            position += i;
+        }
+        return position;
+    }
+
+    private String read(long from, long to) {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("log range of %d bytes is too large to be read at once", to - from));
+        }
+        if (from >= to) {
+            return "";
+        }
+        MappedByteBuffer window = map(from, to - from);
+        return decode(window, 0, window.limit());
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer source = buffer.duplicate();
+        source.position(from);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer map(long position, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to read log spool " + file, e);
+        }
+    }
+
+    private int limit(int line) {
+        return Math.max(0, Math.min(line, lineCount));
+    }
+
+}
@@ -0,0 +1,77 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link LogCapture} keeping log in memory.
+ * Log text is kept in single buffer with start offsets of every line, so both whole log
+ * and any range of lines is available without contacting docker daemon.
+ */
+class MemoryLogCapture implements LogCapture {
+
+    private static final int INITIAL_LINES_CAPACITY = 256;
+
+    private final StringBuilder content = new StringBuilder();
+    private int[] lineStarts = new int[INITIAL_LINES_CAPACITY];
+    private int lineCount = 0;
+
+    @Override
+    public synchronized void nextLine(String line) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+        }
+        lineStarts[lineCount++] = content.length();
+        content.append(line).append('\n');
+    }
+
+    @Override
+    public synchronized int lineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public synchronized String getLog() {
+        return content.toString();
+    }
+
+    @Override
+    public synchronized String getLog(int fromLine, int toLine) {
+        int from = limit(fromLine);
+        int to = limit(toLine);
+        if (from >= to) {
+            return "";
+        }
+        return content.substring(lineStarts[from], lineEnd(to - 1) + 1);
+    }
+
+    @Override
+    public synchronized List<String> getLines(int fromLine, int toLine) {
+        int from = limit(fromLine);
+        int to = limit(toLine);
+        List<String> lines = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            lines.add(content.substring(lineStarts[i], lineEnd(i)));
+        }
+        return lines;
+    }
+
+    @Override
+    public synchronized boolean contains(String text) {
+        return content.indexOf(text) >= 0;
+    }
+
+    @Override
+    public void release(boolean keep) { }
+
+    /** Position of new line character ending given line. */
+    private int lineEnd(int line) {
+        return (line + 1 < lineCount ? lineStarts[line + 1] : content.length()) - 1;
+    }
+
+    private int limit(int line) {
+        return Math.max(0, Math.min(line, lineCount));
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.domzal.junit.docker.rule;
+
+import org.junit.rules.ExternalResource;
+
+/**
+ * Rule providing test with container from {@link DockerRulePool}.
+ * Created with {@link DockerRulePool#rule()}.
+ */
+public class PooledDockerRule extends ExternalResource {
+
+    private final DockerRulePool pool;
+
+    private DockerRule current;
+
+    PooledDockerRule(DockerRulePool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        current = pool.checkout();
+    }
+
+    @Override
+    protected void after() {
+        if (current != null) {
+            pool.checkin(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Container assigned to current test.
+     */
+    public DockerRule get() {
+        if (current == null) {
+            throw new IllegalStateException("no container assigned - pooled container is available only during test");
+        }
+        return current;
+    }
+
+}
@@ -0,0 +1,66 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.ProgressHandler;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.ImageNotFoundException;
+import com.spotify.docker.client.exceptions.ImagePullFailedException;
+import com.spotify.docker.client.messages.ProgressMessage;
+
+/**
+ * {@link ProgressHandler} reporting image pull progress. Summary of layer states
+ * is logged every {@value #REPORT_INTERVAL_MS}ms so slow pulls are visible
+ * without flooding log with every progress message.
+ */
+class PullProgressLogger implements ProgressHandler {
+
+    private static Logger log = LoggerFactory.getLogger(PullProgressLogger.class);
+
+    static final long REPORT_INTERVAL_MS = 5000;
+
+    private final String imageNameWithTag;
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, String> layerStatus = new HashMap<>();
+
+    private long lastReportTime = startTime;
+
+    PullProgressLogger(String imageNameWithTag) {
+        this.imageNameWithTag = imageNameWithTag;
+    }
+
+    @Override
+    public void progress(ProgressMessage message) throws DockerException {
+        String error = message.error();
+        if (error != null) {
+            if (error.contains("404") || error.contains("not found")) {
+                throw new ImageNotFoundException(imageNameWithTag, message.toString());
+            }
+            throw new ImagePullFailedException(imageNameWithTag, message.toString());
+        }
+        log.trace("pull '{}': {}", imageNameWithTag, message);
+        if (message.id() != null && message.status() != null) {
+            layerStatus.put(message.id(), message.status());
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastReportTime >= REPORT_INTERVAL_MS) {
+            lastReportTime = now;
+            log.info("pulling '{}' for {}s, layers: {}", imageNameWithTag, (now - startTime) / 1000, layerSummary());
+        }
+    }
+
+    private Map<String, Integer> layerSummary() {
+        Map<String, Integer> summary = new TreeMap<>();
+        for (String status : layerStatus.values()) {
+            Integer count = summary.get(status);
+            summary.put(status, count == null ? 1 : count + 1);
+        }
+        return summary;
+    }
+
+}
@@ -0,0 +1,305 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.DockerClient.ListContainersParam;
+import com.spotify.docker.client.DockerClient.RemoveContainerParam;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.DockerRequestException;
+import com.spotify.docker.client.messages.Container;
+
+/**
+ * Lookup and cleanup of containers started in reuse mode
+ * (see {@link DockerRuleBuilder#reuseContainer(int)}). Reusable containers
+ * are labeled with hash of configuration they were created from and their time to live.
+ * <p>
+ * Time to live is counted from last use. Use is recorded in marker file (one per container,
+ * in {@value #USE_MARKERS_DIR_NAME} subdirectory of temp dir, modification time is time of last use)
+ * shared by all JVMs on this machine - rules using container hold shared lock of its marker,
+ * so container is never removed while any rule uses it.
+ * <p>
+ * Container is reused only after it was marked ready (all start conditions were met) - ready marker
+ * is file next to use marker. Container which failed to start is removed by rule which started it.
+ */
+class ReusableContainers {
+
+    private static Logger log = LoggerFactory.getLogger(ReusableContainers.class);
+
+    static final String CONFIG_HASH_LABEL = "pl.domzal.junit.docker.rule.config-hash";
+    static final String TTL_LABEL = "pl.domzal.junit.docker.rule.reuse-ttl";
+
+    static final String USE_MARKERS_DIR_NAME = "junit-docker-rule-reuse";
+    private static final File USE_MARKERS_DIR = new File(System.getProperty("java.io.tmpdir"), USE_MARKERS_DIR_NAME);
+
+    private static final String READY_MARKER_SUFFIX = ".ready";
+    private static final String STATE_RUNNING = "running";
+    private static final int HTTP_CONFLICT = 409;
+
+    /** Containers used by rules of this JVM. */
+    private static final Map<String, Usage> inUse = new HashMap<>();
+
+    private ReusableContainers() {}
+
+    /**
+     * Container labels extended with reuse labels.
+     */
+    static Map<String, String> labels(Map<String, String> labels, String configHash, int ttlSeconds) {
+        Map<String, String> reuseLabels = new HashMap<>(labels);
+        reuseLabels.put(CONFIG_HASH_LABEL, configHash);
+        reuseLabels.put(TTL_LABEL, Integer.toString(ttlSeconds));
+        return reuseLabels;
+    }
+
+    /**
+     * Record that rule started to use given container. Until {@link #markUnused(String)} is called
+     * container is not removed by any rule (of any JVM on this machine).
+     */
+    static void markInUse(String containerId) {
+        synchronized (inUse) {
+            Usage usage = inUse.get(containerId);
+            if (usage == null) {
+                usage = Usage.start(containerId);
+                inUse.put(containerId, usage);
+            }
+            usage.users++;
+        }
+        touch(marker(containerId));
+    }
+
+    /**
+     * Record that rule stopped to use given container - its time to live is counted from now.
+     */
+    static void markUnused(String containerId) {
+        touch(marker(containerId));
+        synchronized (inUse) {
+            Usage usage = inUse.get(containerId);
+            if (usage != null && --usage.users == 0) {
+                inUse.remove(containerId);
+                usage.release();
+            }
+        }
+    }
+
+    /**
+     * Record that given container was started and all its start conditions were met, so it can be reused.
+     */
+    static void markReady(String containerId) {
+        File readyMarker = readyMarker(containerId);
+        try {
+            ensureMarkersDir();
+            if (!readyMarker.createNewFile() && !readyMarker.exists()) {
+                throw new IOException("unable to create " + readyMarker);
+            }
+        } catch (IOException e) {
+            log.warn("unable to mark container {} as ready, it will not be reused", containerId, e);
+        }
+    }
+
+    /**
+     * Remove container started in reuse mode which did not become ready (start failed or wait timed out).
+     * Errors are logged only, so they do not hide start failure.
+     */
+    static void removeNotReady(DockerClient dockerClient, String containerId) {
+        markUnused(containerId);
+        try {
+            dockerClient.removeContainer(containerId, RemoveContainerParam.forceKill(), RemoveContainerParam.removeVolumes());
+            log.info("reusable container {} which failed to start removed", containerId);
+        } catch (DockerException | RuntimeException e) {
+            log.warn("unable to remove reusable container {} which failed to start", containerId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("interrupted while removing reusable container {} which failed to start", containerId);
+        }
+        deleteMarkers(containerId);
+    }
+
+    /**
+     * Id of running, ready, not expired container created from configuration with given hash.
+     *
+     * @return Container id or <code>null</code> when there is no such container.
+     */
+    static String findRunning(DockerClient dockerClient, String configHash) throws DockerException, InterruptedException {
+        List<Container> containers = dockerClient.listContainers(ListContainersParam.withLabel(CONFIG_HASH_LABEL, configHash), ListContainersParam.withStatusRunning());
+        long now = currentTimeSeconds();
+        for (Container container : containers) {
+            // not ready container may be still starting (by other rule) or may have failed to start
+            if (!isExpired(container, now) && readyMarker(container.id()).exists()) {
+                return container.id();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove reusable containers not used for longer than their time to live. Running container
+     * is removed only when no rule (of any JVM on this machine) uses it.
+     */
+    static void removeExpired(DockerClient dockerClient) throws DockerException, InterruptedException {
+        List<Container> containers = dockerClient.listContainers(ListContainersParam.withLabel(CONFIG_HASH_LABEL), ListContainersParam.allContainers());
+        long now = currentTimeSeconds();
+        for (Container container : containers) {
+            if (!isExpired(container, now)) {
+                continue;
+            }
+            if (!STATE_RUNNING.equals(container.state())) {
+                try {
+                    remove(dockerClient, container.id(), RemoveContainerParam.removeVolumes());
+                } catch (DockerRequestException e) {
+                    // container started since it was listed
+                    if (e.status() != HTTP_CONFLICT) {
+                        throw e;
+                    }
+                    log.debug("expired reusable container {} is running again", container.id());
+                }
+                continue;
+            }
+            synchronized (inUse) {
+                // held while removing, so other rules wait before using container
+                FileChannel idleMarker = tryLockIdle(container.id());
+                if (idleMarker == null) {
+                    log.debug("expired reusable container {} still in use", container.id());
+                    continue;
+                }
+                try {
+                    remove(dockerClient, container.id(), RemoveContainerParam.forceKill(), RemoveContainerParam.removeVolumes());
+                } finally {
+                    closeQuietly(idleMarker);
+                }
+            }
+        }
+    }
+
+    private static void remove(DockerClient dockerClient, String containerId, RemoveContainerParam... params) throws DockerException, InterruptedException {
+        dockerClient.removeContainer(containerId, params);
+        deleteMarkers(containerId);
+        log.info("expired reusable container {} removed", containerId);
+    }
+
+    private static void deleteMarkers(String containerId) {
+        if (!marker(containerId).delete()) {
+            log.trace("no use marker of {}", containerId);
+        }
+        if (!readyMarker(containerId).delete()) {
+            log.trace("no ready marker of {}", containerId);
+        }
+    }
+
+    /**
+     * Use marker of container locked exclusively (lock is released with channel close),
+     * <code>null</code> when container is used by any rule. Must be called with {@link #inUse} lock held.
+     */
+    private static FileChannel tryLockIdle(String containerId) {
+        if (inUse.containsKey(containerId)) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            channel = openMarker(containerId);
+            if (channel.tryLock() == null) {
+                channel.close();
+                return null;
+            }
+            return channel;
+        } catch (IOException | OverlappingFileLockException e) {
+            log.debug("unable to check use of {}, assuming it is in use", containerId, e);
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    private static FileChannel openMarker(String containerId) throws IOException {
+        ensureMarkersDir();
+        return FileChannel.open(marker(containerId).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void ensureMarkersDir() throws IOException {
+        if (!USE_MARKERS_DIR.isDirectory() && !USE_MARKERS_DIR.mkdirs() && !USE_MARKERS_DIR.isDirectory()) {
+            throw new IOException("unable to create " + USE_MARKERS_DIR);
+        }
+    }
+
+    private static boolean isExpired(Container container, long nowSeconds) {
+        Map<String, String> labels = container.labels();
+        int ttlSeconds = NumberUtils.toInt(labels != null ? labels.get(TTL_LABEL) : null, 0);
+        Long created = container.created();
+        if (created == null) {
+            return true;
+        }
+        long lastUse = Math.max(created, TimeUnit.MILLISECONDS.toSeconds(marker(container.id()).lastModified()));
+        return lastUse + ttlSeconds < nowSeconds;
+    }
+
+    private static File marker(String containerId) {
+        return new File(USE_MARKERS_DIR, containerId);
+    }
+
+    private static File readyMarker(String containerId) {
+        return new File(USE_MARKERS_DIR, containerId + READY_MARKER_SUFFIX);
+    }
+
+    private static void touch(File marker) {
+        if (!marker.setLastModified(System.currentTimeMillis())) {
+            log.debug("unable to record use of reusable container in {}", marker);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                // releases lock too
+                channel.close();
+            } catch (IOException e) {
+                log.debug("unable to close use marker", e);
+            }
+        }
+    }
+
+    private static long currentTimeSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    /**
+     * Use of container by rules of this JVM - shared lock of its use marker.
+     */
+    private static class Usage {
+
+        private final FileChannel channel;
+        private int users = 0;
+
+        private Usage(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        static Usage start(String containerId) {
+            FileChannel channel = null;
+            try {
+                channel = openMarker(containerId);
+                // waits for removal check of other JVM in progress
+                channel.lock(0, Long.MAX_VALUE, true);
+                return new Usage(channel);
+            } catch (IOException e) {
+                log.warn("unable to mark container {} as used, it may be removed by rules of other JVM", containerId, e);
+                closeQuietly(channel);
+                return new Usage(null);
+            }
+        }
+
+        void release() {
+            closeQuietly(channel);
+        }
+    }
+
+}
@@ -9,8 +9,12 @@ import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 
 import pl.domzal.junit.docker.rule.wait.HttpPingChecker;
+import pl.domzal.junit.docker.rule.wait.LineListener;
 import pl.domzal.junit.docker.rule.wait.LogChecker;
+import pl.domzal.junit.docker.rule.wait.LogRegexChecker;
 import pl.domzal.junit.docker.rule.wait.LogSequenceChecker;
+import pl.domzal.junit.docker.rule.wait.NotifyingStartConditionCheck;
+import pl.domzal.junit.docker.rule.wait.ReadyAfterHint;
 import pl.domzal.junit.docker.rule.wait.TcpPortChecker;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 import pl.domzal.junit.docker.rule.wait.StartCondition;
@@ -23,8 +27,8 @@ public class WaitFor {
     private static final Logger log = LoggerFactory.getLogger(WaitFor.class);
 
     /**
-     * Wait for specified text in log on container start.
-     * Whole log content (from container start) is checked so this condition
+     * Wait for specified text in log line on container start.
+     * Log lines (from container start) are checked as they arrive so this condition
      * will work independent of any other wait conditions.
      * Rule startup will fail when message will not be found.
      *
@@ -35,7 +39,23 @@ public class WaitFor {
             @Override
             public StartConditionCheck build(DockerRule currentRule) {
                 log.debug("new wait for condition - message: '{}'", logMessage);
-                return new LogChecker(currentRule, logMessage);
+                return new LogChecker(logMessage);
+            }
+        };
+    }
+
+    /**
+     * Wait for log line containing match of given regular expression on container start.
+     * Like {@link #logMessage(String)} log lines (from container start) are checked as they arrive.
+     *
+     * @param regex Regular expression (see {@link java.util.regex.Pattern}).
+     */
+    public static StartCondition logMessageMatching(final String regex) {
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                log.debug("new wait for condition - message matching: '{}'", regex);
+                return new LogRegexChecker(regex);
             }
         };
     }
@@ -102,6 +122,23 @@ public class WaitFor {
         };
     }
 
+    /**
+     * Wait for container to report <i>healthy</i> status. Container must have health check defined
+     * (in image with Dockerfile <code>HEALTHCHECK</code> directive or with
+     * {@link DockerRuleBuilder#healthCheck(String, int, int, int)}).
+     * Health status changes are received from docker events so check is done as soon as status changes.
+     * Rule startup fails immediately when container reports <i>unhealthy</i> status or exits.
+     */
+    public static StartCondition healthy() {
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                log.debug("new wait for condition - healthy");
+                return new HealthChecker(currentRule);
+            }
+        };
+    }
+
     /**
      * Wait for http endpoint availability under given <b>internal</b> container port.
      * Given port MUST be exposed (with {@link DockerRuleBuilder#expose(String, String)} or
@@ -128,4 +165,57 @@ public class WaitFor {
         };
     }
 
+    /**
+     * Polled condition (like {@link #tcpPort(int...)} or {@link #httpPing(int)}) not checked before given time,
+     * so containers known to start slowly are not probed in vain. Log and health conditions are not polled
+     * (they are notified on every change) - for them hint is ignored.
+     *
+     * @param condition Wrapped condition.
+     * @param millis Time (since wait start) condition is expected to be met after.
+     */
+    public static StartCondition expectedReadyAfter(final StartCondition condition, final long millis) {
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                StartConditionCheck check = condition.build(currentRule);
+                if (check instanceof LineListener || check instanceof NotifyingStartConditionCheck) {
+                    log.debug("ready after hint ignored for notified condition {}", check.describe());
+                    return check;
+                }
+                return new ReadyAfterCheck(check, millis);
+            }
+        };
+    }
+
+    private static class ReadyAfterCheck implements StartConditionCheck, ReadyAfterHint {
+
+        private final StartConditionCheck check;
+        private final long readyAfterMs;
+
+        ReadyAfterCheck(StartConditionCheck check, long readyAfterMs) {
+            this.check = check;
+            this.readyAfterMs = readyAfterMs;
+        }
+
+        @Override
+        public long expectedReadyAfterMs() {
+            return readyAfterMs;
+        }
+
+        @Override
+        public boolean check() {
+            return check.check();
+        }
+
+        @Override
+        public String describe() {
+            return check.describe();
+        }
+
+        @Override
+        public void after() {
+            check.after();
+        }
+    }
+
 }
@@ -1,20 +1,49 @@
 package pl.domzal.junit.docker.rule;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import pl.domzal.junit.docker.rule.wait.BackoffPollStrategy;
+import pl.domzal.junit.docker.rule.wait.NotifyingStartConditionCheck;
+import pl.domzal.junit.docker.rule.wait.PollStrategy;
+import pl.domzal.junit.docker.rule.wait.ReadyAfterHint;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
 /**
  * Helper class to block on given {@link WaitForContainer}.
+ * <p>
+ * Multiple conditions are checked concurrently - every wait checks them on its own threads (checks
+ * may block), JVM-wide scheduler thread only triggers polls.
  */
 class WaitForContainer {
 
     private static Logger log = LoggerFactory.getLogger(WaitForContainer.class);
 
+    private static final ScheduledExecutorService pollScheduler = createPollScheduler();
+
+    private static ScheduledExecutorService createPollScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,//
+                new ThreadFactoryBuilder()//
+                        .setNameFormat("wait-poll-scheduler-%d")//
+                        .setDaemon(true)//
+                        .build());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
     /**
      * Wait till all given conditions are met.
      *
@@ -23,22 +52,276 @@ class WaitForContainer {
      * @param containerDescription Container description. For log and exception message usage only.
      */
     static void waitForCondition(final StartConditionCheck condition, int timeoutSeconds, final String containerDescription) throws TimeoutException {
+        waitForCondition(condition, timeoutSeconds, BackoffPollStrategy.defaultStrategy(), containerDescription);
+    }
+
+    /**
+     * Wait till given condition is met, polling it (unless it notifies every change) with given strategy.
+     */
+    static void waitForCondition(final StartConditionCheck condition, int timeoutSeconds, PollStrategy pollStrategy, final String containerDescription) throws TimeoutException {
         try {
             log.info("wait for {} started", condition.describe());
-            new WaitForUnit(TimeUnit.SECONDS, timeoutSeconds, TimeUnit.SECONDS, 1, new WaitForUnit.WaitForCondition() {
+            final WaitForUnit waitForUnit = new WaitForUnit(TimeUnit.SECONDS, timeoutSeconds, pollStrategy, new WaitForUnit.WaitForCondition() {
                 @Override
                 public boolean isConditionMet() {
                     return condition.check();
                 }
                 @Override
+                public boolean isPollingNeeded() {
+                    return WaitForContainer.isPollingNeeded(condition);
+                }
+                @Override
+                public long expectedReadyAfterMs() {
+                    return WaitForContainer.expectedReadyAfterMs(condition);
+                }
+                @Override
                 public String timeoutMessage() {
                     return String.format("timeout waiting for %s in container %s", condition.describe(), containerDescription);
                 }
-            }).startWaiting();
+            });
+            if (condition instanceof NotifyingStartConditionCheck) {
+                ((NotifyingStartConditionCheck) condition).setChangeListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        waitForUnit.wakeUp();
+                    }
+                });
+            }
+            waitForUnit.startWaiting();
             log.info("wait for {} - condition met", condition.describe());
         } catch (InterruptedException e) {
             throw new IllegalStateException(String.format("Interrupted while waiting for %s", condition.describe()), e);
+        } finally {
+            condition.after();
+        }
+    }
+
+    /**
+     * Wait till all given conditions are met, polling them with default strategy.
+     */
+    static void waitForConditions(List<StartConditionCheck> conditions, int timeoutSeconds, String containerDescription) throws TimeoutException {
+        waitForConditions(conditions, timeoutSeconds, BackoffPollStrategy.defaultStrategy(), containerDescription);
+    }
+
+    /**
+     * Wait till all given conditions are met. Conditions are checked concurrently and share
+     * single deadline, so waiting takes as long as waiting for slowest condition.
+     *
+     * @param conditions Conditions to wait for - all must be met to continue.
+     * @param timeoutSeconds Wait timeout (for all conditions).
+     * @param pollStrategy Delays between checks of polled conditions.
+     * @param containerDescription Container description. For log and exception message usage only.
+     */
+    static void waitForConditions(List<StartConditionCheck> conditions, int timeoutSeconds, PollStrategy pollStrategy, String containerDescription) throws TimeoutException {
+        if (conditions.size() == 1) {
+            waitForCondition(conditions.get(0), timeoutSeconds, pollStrategy, containerDescription);
+            return;
+        }
+        if (conditions.isEmpty()) {
+            return;
+        }
+        new ConcurrentWait(conditions, pollStrategy, containerDescription).await(timeoutSeconds);
+    }
+
+    private static boolean isPollingNeeded(StartConditionCheck condition) {
+        return !(condition instanceof NotifyingStartConditionCheck && ((NotifyingStartConditionCheck) condition).isChangeNotified());
+    }
+
+    private static long expectedReadyAfterMs(StartConditionCheck condition) {
+        return (condition instanceof ReadyAfterHint) ? ((ReadyAfterHint) condition).expectedReadyAfterMs() : 0;
+    }
+
+    /**
+     * Single wait for multiple conditions.
+     */
+    private static class ConcurrentWait {
+
+        private final List<PendingCondition> pending = new ArrayList<>();
+        private final ExecutorService checkExecutor;
+        private final PollStrategy pollStrategy;
+        private final String containerDescription;
+        private final long startTime = System.nanoTime();
+
+        private int metCount = 0;
+        private Throwable failure;
+
+        ConcurrentWait(List<StartConditionCheck> conditions, PollStrategy pollStrategy, String containerDescription) {
+            for (StartConditionCheck condition : conditions) {
+                pending.add(new PendingCondition(condition));
+            }
+            // one thread per condition - checks of single condition are never run concurrently anyway
+            this.checkExecutor = Executors.newFixedThreadPool(pending.size(), new ThreadFactoryBuilder()//
+                    .setNameFormat("wait-check-%d")//
+                    .setDaemon(true)//
+                    .build());
+            this.pollStrategy = pollStrategy;
+            this.containerDescription = containerDescription;
+        }
+
+        void await(int timeoutSeconds) throws TimeoutException {
+            long deadline = startTime + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            log.info("wait for {} conditions started", pending.size());
+            try {
+                for (PendingCondition condition : pending) {
+                    condition.start();
+                }
+                synchronized (this) {
+                    while (metCount < pending.size() && failure == null) {
+                        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                        if (remainingMs <= 0) {
+                            throw new TimeoutException(String.format("timeout waiting for %s in container %s (%s)", describePending(), containerDescription, describeMet()));
+                        }
+                        wait(remainingMs);
+                    }
+                    if (failure != null) {
+                        throwFailure();
+                    }
+                }
+                log.info("wait for {} conditions - all met ({})", pending.size(), describeMet());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(String.format("Interrupted while waiting for %s", describePending()), e);
+            } finally {
+                for (PendingCondition condition : pending) {
+                    condition.stop();
+                }
+                checkExecutor.shutdown();
+            }
+        }
+
+        private void throwFailure() {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IllegalStateException(failure);
+        }
+
+        private synchronized void met(PendingCondition condition) {
+            condition.metAfterMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            metCount++;
+            log.info("wait for {} - condition met after {}ms", condition.condition.describe(), condition.metAfterMs);
+            notifyAll();
+        }
+
+        private synchronized void failed(PendingCondition condition, Throwable e) {
+            log.warn("wait for {} - check failed", condition.condition.describe());
+            if (failure == null) {
+                failure = e;
+            }
+            notifyAll();
+        }
+
+        private synchronized String describePending() {
+            List<String> descriptions = new ArrayList<>();
+            for (PendingCondition condition : pending) {
+                if (condition.metAfterMs == null) {
+                    descriptions.add(condition.condition.describe());
+                }
+            }
+            return descriptions.toString();
+        }
+
+        private synchronized String describeMet() {
+            List<String> descriptions = new ArrayList<>();
+            for (PendingCondition condition : pending) {
+                if (condition.metAfterMs != null) {
+                    descriptions.add(String.format("%s met after %dms", condition.condition.describe(), condition.metAfterMs));
+                }
+            }
+            return descriptions.isEmpty() ? "no condition met" : String.valueOf(descriptions);
         }
+
+        /**
+         * Condition checked on wait own threads - first time immediately (or after expected ready time), then on every
+         * poll (when polling is needed) and on every change notification. Shared scheduler only triggers polls.
+         */
+        private class PendingCondition implements Runnable {
+
+            private final StartConditionCheck condition;
+            private volatile ScheduledFuture<?> poll;
+            private Long metAfterMs;
+            private volatile boolean done = false;
+
+            PendingCondition(StartConditionCheck condition) {
+                this.condition = condition;
+            }
+
+            void start() {
+                if (condition instanceof NotifyingStartConditionCheck) {
+                    ((NotifyingStartConditionCheck) condition).setChangeListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!done) {
+                                execute(PendingCondition.this);
+                            }
+                        }
+                    });
+                }
+                schedulePoll(0);
+            }
+
+            private void schedulePoll(final int check) {
+                long delayMs = (check == 0) ? Math.max(pollStrategy.delayMs(0), expectedReadyAfterMs(condition)) : pollStrategy.delayMs(check);
+                poll = pollScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (check == 0 || isPollingNeeded(condition)) {
+                                    PendingCondition.this.run();
+                                }
+                                if (!done) {
+                                    schedulePoll(check + 1);
+                                }
+                            }
+                        });
+                    }
+                }, delayMs, TimeUnit.MILLISECONDS);
+            }
+
+            private void execute(Runnable check) {
+                try {
+                    checkExecutor.execute(check);
+                } catch (RejectedExecutionException e) {
+                    // wait already finished
+                    log.trace("check of {} after wait end skipped", condition.describe());
+                }
+            }
+
+            /**
+             * Check condition (checks of single condition are never run concurrently).
+             */
+            @Override
+            public synchronized void run() {
+                if (done) {
+                    return;
+                }
+                try {
+                    if (condition.check()) {
+                        done = true;
+                        met(this);
+                    }
+                } catch (Throwable e) {
+                    done = true;
+                    failed(this, e);
+                }
+            }
+
+            /**
+             * Stop checking - waits for check in progress (if any), so resources released by
+             * {@link StartConditionCheck#after()} are not used by it.
+             */
+            synchronized void stop() {
+                done = true;
+                if (poll != null) {
+                    poll.cancel(false);
+                }
+                condition.after();
+            }
+        }
+
     }
 
 }
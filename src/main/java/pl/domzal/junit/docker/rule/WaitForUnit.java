@@ -3,12 +3,18 @@ package pl.domzal.junit.docker.rule;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import pl.domzal.junit.docker.rule.wait.BackoffPollStrategy;
+import pl.domzal.junit.docker.rule.wait.PollStrategy;
+
 /**
  * Wait for condition ({@link WaitForCondition}) for time specified in {@link java.util.concurrent.TimeUnit}s.
+ * Delays between condition checks are set with {@link PollStrategy}, time is measured with {@link System#nanoTime()}.
  */
 class WaitForUnit {
 
@@ -20,11 +26,15 @@ class WaitForUnit {
     private static Logger log = LoggerFactory.getLogger(WaitForUnit.class);
 
     private final long waitMs;
-    private final long tickMs;
-    private final long deadlineTime;
-    private final long startTime;
+    private final PollStrategy pollStrategy;
+    private final long deadlineNanos;
+    private final long startNanos;
     private final WaitForCondition doneWaitingCondition;
 
+    private final Lock tickLock = new ReentrantLock();
+    private final Condition tickCondition = tickLock.newCondition();
+    private boolean wokenUp = false;
+
     /**
      * @param timeUnit Wait time unit
      * @param waitTime Wait time (for condition)
@@ -52,36 +62,84 @@ class WaitForUnit {
      * @param condition Condition we are waiting for
      */
     public WaitForUnit(TimeUnit waitUnit, int waitTime, TimeUnit tickUnit, int tickTime, WaitForCondition condition) {
+        this(waitUnit, waitTime, BackoffPollStrategy.fixed(tickUnit.toMillis(tickTime)), condition);
+    }
+
+    /**
+     * @param waitUnit Wait time unit
+     * @param waitTime Wait time (for condition)
+     * @param pollStrategy Delays between checks
+     * @param condition Condition we are waiting for
+     */
+    public WaitForUnit(TimeUnit waitUnit, int waitTime, PollStrategy pollStrategy, WaitForCondition condition) {
         this.waitMs = waitUnit.toMillis(waitTime);
-        this.tickMs = tickUnit.toMillis(tickTime);
-        this.startTime = System.currentTimeMillis();
-        this.deadlineTime = this.startTime+this.waitMs;
+        this.pollStrategy = pollStrategy;
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = this.startNanos + TimeUnit.MILLISECONDS.toNanos(this.waitMs);
         this.doneWaitingCondition = condition;
     }
 
     public void startWaiting() throws TimeoutException, InterruptedException {
         String conditionDescription = doneWaitingCondition.tickMessage();
         log.debug("{} - started ({}ms)", conditionDescription, waitMs);
-        while (true) {
-            long currentTime = System.currentTimeMillis();
+        long firstDelayMs = Math.max(pollStrategy.delayMs(0), doneWaitingCondition.expectedReadyAfterMs());
+        if (firstDelayMs > 0) {
+            awaitTick(firstDelayMs);
+            assertTimeNotExceeded(conditionDescription);
+        }
+        for (int check = 1; ; check++) {
             conditionDescription = doneWaitingCondition.tickMessage();
             if (doneWaitingCondition.isConditionMet()) {
-                log.debug("{} - condition met in {} ms", conditionDescription, (currentTime - startTime));
+                log.debug("{} - condition met in {} ms", conditionDescription, elapsedMs());
                 return;
             } else {
                 log.trace("{} - waiting...", conditionDescription);
             }
-            TimeUnit.MILLISECONDS.sleep(tickMs);
-            currentTime = System.currentTimeMillis();
-            assertTimeNotExceeded(conditionDescription, currentTime);
+            awaitTick(doneWaitingCondition.isPollingNeeded() ? pollStrategy.delayMs(check) : Long.MAX_VALUE);
+            assertTimeNotExceeded(conditionDescription);
         }
     }
 
-    private void assertTimeNotExceeded(String waitForConditionDescription, long currentTime) throws TimeoutException {
-        if (currentTime > deadlineTime) {
+    private long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Wait for given time (but no longer than till deadline) or wake up, whichever comes first.
+     * When condition does not need polling there are no ticks - only wake up or deadline ends waiting.
+     */
+    private void awaitTick(long delayMs) throws InterruptedException {
+        long untilDeadlineMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()) + 1;
+        long awaitMs = Math.max(1, Math.min(delayMs, untilDeadlineMs));
+        tickLock.lock();
+        try {
+            if (!wokenUp) {
+                tickCondition.await(awaitMs, TimeUnit.MILLISECONDS);
+            }
+            wokenUp = false;
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    /**
+     * Check condition now instead of at next tick. May be called from any thread.
+     */
+    public void wakeUp() {
+        tickLock.lock();
+        try {
+            wokenUp = true;
+            tickCondition.signalAll();
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    private void assertTimeNotExceeded(String waitForConditionDescription) throws TimeoutException {
+        if (System.nanoTime() - deadlineNanos > 0) {
             String timeoutTick = doneWaitingCondition.timeoutMessage();
             log.warn("wait failed with {}", timeoutTick);
-            String errorMessage = "Condition ["+waitForConditionDescription+"] was not met for [" + (currentTime-startTime) + "/"+waitMs+"]ms, "+timeoutTick;
+            String errorMessage = "Condition ["+waitForConditionDescription+"] was not met for [" + elapsedMs() + "/"+waitMs+"]ms, "+timeoutTick;
             // error visible in console
             log.error(errorMessage);
             // exception for junit test to fall miserably
@@ -93,6 +151,21 @@ class WaitForUnit {
 
         public abstract boolean isConditionMet();
 
+        /**
+         * Whether condition must be checked on every tick. Conditions which wake waiting up
+         * ({@link WaitForUnit#wakeUp()}) on every change can override it to return <code>false</code>.
+         */
+        public boolean isPollingNeeded() {
+            return true;
+        }
+
+        /**
+         * Time (since wait start) condition is expected to be met after [ms] - it is not checked earlier.
+         */
+        public long expectedReadyAfterMs() {
+            return 0;
+        }
+
         /**
          * Part of message shown on every tick.
          * Can be overriden to extend diagnostic information in log.
@@ -1,8 +1,15 @@
 package pl.domzal.junit.docker.rule;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import pl.domzal.junit.docker.rule.ex.WaitTimeoutException;
+import pl.domzal.junit.docker.rule.wait.BackoffPollStrategy;
+import pl.domzal.junit.docker.rule.wait.HttpPingChecker;
+import pl.domzal.junit.docker.rule.wait.HttpPingClient;
+import pl.domzal.junit.docker.rule.wait.PollStrategy;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
 public class WaitUtil {
@@ -10,7 +17,7 @@ public class WaitUtil {
     // how long to wait at max when doing a http ping
     private static final long DEFAULT_MAX_WAIT = 10 * 1000;
 
-    // How long to wait between pings
+    // How long to wait between pings (at most)
     private static final long WAIT_RETRY_WAIT = 500;
 
     private WaitUtil() {}
@@ -20,19 +27,50 @@ public class WaitUtil {
     }
 
     public static long wait(int maxWait, Iterable<StartConditionCheck> checkers) throws WaitTimeoutException {
+        return wait(maxWait, new BackoffPollStrategy(BackoffPollStrategy.DEFAULT_FIRST_DELAY_MS, BackoffPollStrategy.DEFAULT_MULTIPLIER, WAIT_RETRY_WAIT, BackoffPollStrategy.DEFAULT_JITTER), checkers);
+    }
+
+    /**
+     * Wait till any of given URLs is available (see {@link HttpPingChecker}). Probes share
+     * JVM-wide connection pool ({@link HttpPingClient#shared()}) with rule wait conditions.
+     *
+     * @param maxWait Max wait time [ms].
+     * @return Wait time [ms].
+     */
+    public static long waitForHttpPing(int maxWait, String... urls) throws WaitTimeoutException {
+        List<StartConditionCheck> checkers = new ArrayList<>();
+        for (String url : urls) {
+            checkers.add(new HttpPingChecker(url));
+        }
+        return wait(maxWait, checkers);
+    }
+
+    /**
+     * Wait till any of checkers finishes successfully.
+     *
+     * @param maxWait Max wait time [ms].
+     * @param pollStrategy Delays between checks.
+     * @return Wait time [ms].
+     */
+    public static long wait(int maxWait, PollStrategy pollStrategy, Iterable<StartConditionCheck> checkers) throws WaitTimeoutException {
         long max = maxWait > 0 ? maxWait : DEFAULT_MAX_WAIT;
-        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
         try {
-            do {
+            sleep(pollStrategy.delayMs(0));
+            for (int check = 1; ; check++) {
                 for (StartConditionCheck checker : checkers) {
                     if (checker.check()) {
-                        return delta(now);
+                        return delta(start);
                     }
                 }
-                sleep(WAIT_RETRY_WAIT);
-            } while (delta(now) < max);
+                long remaining = max - delta(start);
+                if (remaining <= 0) {
+                    break;
+                }
+                sleep(Math.min(pollStrategy.delayMs(check), remaining));
+            }
 
-            throw new WaitTimeoutException("No checker finished successfully", delta(now));
+            throw new WaitTimeoutException("No checker finished successfully", delta(start));
 
         } finally {
             cleanup(checkers);
@@ -52,6 +90,9 @@ public class WaitUtil {
      * @param millis how long to sleep in milliseconds
      */
     private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
         try {
             Thread.sleep(millis);
         } catch (InterruptedException e) {
@@ -59,8 +100,8 @@ public class WaitUtil {
         }
     }
 
-    private static long delta(long now) {
-        return System.currentTimeMillis() - now;
+    private static long delta(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,273 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * JVM-wide writer printing container log lines on single background thread, so log reading
+ * threads neither build printed lines nor contend for output stream locks.
+ * Queued lines are written in batches - with single write and flush per output stream per batch.
+ * <p>
+ * Queue size is set with {@value #QUEUE_SIZE_PROPERTY} (default {@value #DEFAULT_QUEUE_SIZE}).
+ * Behavior on full queue is set per printer with {@link LogOverflowPolicy} (default set with
+ * {@value #OVERFLOW_POLICY_PROPERTY}, {@link LogOverflowPolicy#BLOCK} if not set). Number of dropped lines
+ * is printed to output stream they were dropped from. Queued lines are written by JVM shutdown hook.
+ * <p>
+ * Single writer ({@link #instance()}) is shared by all outputs in JVM.
+ */
+public class AsyncLogWriter implements Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(AsyncLogWriter.class);
+
+    public static final String QUEUE_SIZE_PROPERTY = "junit.docker.rule.logWriterQueueSize";
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final String OVERFLOW_POLICY_PROPERTY = "junit.docker.rule.logOverflowPolicy";
+
+    static final int SAMPLE_RATE = 10;
+
+    private static final int MAX_BATCH = 1000;
+    private static final int DRAIN_TIMEOUT_MS = 5000;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final AsyncLogWriter INSTANCE = new AsyncLogWriter(Math.max(1, Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE)));
+
+    private final BlockingQueue<Entry> queue;
+    private final int capacity;
+
+    /** Lines dropped since last written batch (guarded by itself, weak so dropped outputs are not retained). */
+    private final Map<PrintStream, Long> droppedByOutput = new WeakHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Lines accepted (queued or dropped) and lines done with (written or dropped). */
+    private long accepted = 0;
+    private long completed = 0;
+    private final Object progressLock = new Object();
+
+    private final Thread writerThread;
+    private final Thread drainHook;
+
+    AsyncLogWriter(int capacity) {
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new ThreadFactoryBuilder()//
+                .setNameFormat("dockerlog-writer-%d")//
+                .setDaemon(true)//
+                .build()//
+                .newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeLoop();
+                    }
+                });
+        this.writerThread.start();
+        this.drainHook = new Thread("dockerlog-writer-drain") {
+            @Override
+            public void run() {
+                awaitWritten(DRAIN_TIMEOUT_MS);
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(drainHook);
+    }
+
+    public static AsyncLogWriter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Default overflow policy (set with {@value #OVERFLOW_POLICY_PROPERTY}).
+     */
+    public static LogOverflowPolicy defaultOverflowPolicy() {
+        String policy = System.getProperty(OVERFLOW_POLICY_PROPERTY);
+        return (policy != null) ? LogOverflowPolicy.valueOf(policy.trim().toUpperCase()) : LogOverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Queue line for printing.
+     *
+     * @param lineNumber Number of line within printed log (used for sampling).
+     */
+    void write(PrintStream output, String prefix, String line, LogOverflowPolicy policy, long lineNumber) throws InterruptedException {
+        Entry entry = new Entry(output, prefix, line);
+        synchronized (progressLock) {
+            accepted++;
+        }
+        switch (policy) {
+        case BLOCK:
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                // line is not written, so awaitWritten() must not wait for it
+                completed(1);
+                throw e;
+            }
+            break;
+        case DROP_OLDEST:
+            while (!queue.offer(entry)) {
+                Entry oldest = queue.poll();
+                if (oldest != null) {
+                    dropped(oldest);
+                }
+            }
+            break;
+        case SAMPLE:
+            boolean sampledOut = queue.size() >= capacity / 2 && lineNumber % SAMPLE_RATE != 0;
+            if (sampledOut || !queue.offer(entry)) {
+                dropped(entry);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown policy " + policy);
+        }
+    }
+
+    private void dropped(Entry entry) {
+        synchronized (droppedByOutput) {
+            Long outputDropped = droppedByOutput.get(entry.output);
+            droppedByOutput.put(entry.output, (outputDropped != null ? outputDropped : 0) + 1);
+        }
+        dropped.incrementAndGet();
+        completed(1);
+    }
+
+    private void completed(int lines) {
+        synchronized (progressLock) {
+            completed += lines;
+            progressLock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait (no longer than given time) till all lines queued so far are written.
+     *
+     * @return <code>false</code> on timeout.
+     */
+    public boolean awaitWritten(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (progressLock) {
+            long target = accepted;
+            while (completed < target) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                try {
+                    progressLock.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Total number of lines dropped because of full queue.
+     */
+    public long droppedLines() {
+        return dropped.get();
+    }
+
+    /**
+     * Number of lines waiting for write.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Write queued lines (waiting no longer than {@value #DRAIN_TIMEOUT_MS}ms) and stop writer thread.
+     * Shared writer ({@link #instance()}) is never closed - it is drained by JVM shutdown hook.
+     */
+    @Override
+    public void close() {
+        awaitWritten(DRAIN_TIMEOUT_MS);
+        writerThread.interrupt();
+        try {
+            Runtime.getRuntime().removeShutdownHook(drainHook);
+        } catch (IllegalStateException e) {
+            // JVM shutdown in progress
+        }
+    }
+
+    /**
+     * Whether writer thread is running.
+     */
+    boolean isRunning() {
+        return writerThread.isAlive();
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                log.debug("log writer interrupted");
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.warn("unable to write container log", e);
+            }
+            completed(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        Map<PrintStream, StringBuilder> outputs = new LinkedHashMap<>();
+        synchronized (droppedByOutput) {
+            for (Map.Entry<PrintStream, Long> outputDropped : droppedByOutput.entrySet()) {
+                output(outputs, outputDropped.getKey()).append("[").append(outputDropped.getValue()).append(" container log lines dropped]").append(LINE_SEPARATOR);
+            }
+            droppedByOutput.clear();
+        }
+        for (Entry entry : batch) {
+            output(outputs, entry.output).append(entry.prefix).append(entry.line).append(LINE_SEPARATOR);
+        }
+        for (Map.Entry<PrintStream, StringBuilder> output : outputs.entrySet()) {
+            output.getKey().print(output.getValue());
+            output.getKey().flush();
+        }
+    }
+
+    private static StringBuilder output(Map<PrintStream, StringBuilder> outputs, PrintStream output) {
+        StringBuilder text = outputs.get(output);
+        if (text == null) {
+            text = new StringBuilder();
+            outputs.put(output, text);
+        }
+        return text;
+    }
+
+    private static class Entry {
+
+        private final PrintStream output;
+        private final String prefix;
+        private final String line;
+
+        Entry(PrintStream output, String prefix, String line) {
+            this.output = output;
+            this.prefix = prefix;
+            this.line = line;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+/**
+ * Assembles lines of single log stream (stdout or stderr) from log frames content
+ * (frame boundaries are unrelated to line boundaries) and passes every complete line
+ * to given sinks. Partial line is kept in buffer reused for all lines.
+ */
+class LineAssembler {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final LineListener[] sinks;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length = 0;
+
+    /**
+     * @param sinks Line consumers (<code>null</code> elements are skipped).
+     */
+    LineAssembler(LineListener... sinks) {
+        this.sinks = sinks;
+    }
+
+    /**
+     * Consume (all remaining) frame content.
+     */
+    void append(ByteBuffer content) {
+        while (content.hasRemaining()) {
+            int lineEnd = indexOfNewLine(content);
+            int chunkLength = (lineEnd >= 0 ? lineEnd : content.limit()) - content.position();
+            ensureCapacity(length + chunkLength);
+            content.get(buffer, length, chunkLength);
+            length += chunkLength;
+            if (lineEnd >= 0) {
+                // skip new line
+                content.get();
+                emit();
+            }
+        }
+    }
+
+    /**
+     * Pass partial line (if any) to sinks - to be used at end of stream.
+     */
+    void flush() {
+        if (length > 0) {
+            emit();
+        }
+    }
+
+    private static int indexOfNewLine(ByteBuffer content) {
+        for (int i = content.position(); i < content.limit(); i++) {
+            if (content.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    private void emit() {
+        int lineLength = (length > 0 && buffer[length - 1] == '\r') ? length - 1 : length;
+        String line = new String(buffer, 0, lineLength, StandardCharsets.UTF_8);
+        length = 0;
+        for (LineListener sink : sinks) {
+            if (sink != null) {
+                sink.nextLine(line);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.spotify.docker.client.LogMessage;
+import com.spotify.docker.client.LogStream;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+/**
+ * Reads docker multiplexed log stream frame by frame and dispatches complete lines
+ * of stdout and stderr to stream specific sinks and to combined (stdout and stderr) sink.
+ * All work is done on single (reading) thread.
+ */
+public class LogDemuxer implements Runnable {
+
+    private static Logger log = LoggerFactory.getLogger(LogDemuxer.class);
+
+    private final LogStream logStream;
+    private final LineAssembler stdout;
+    private final LineAssembler stderr;
+
+    private volatile boolean completed = false;
+
+    /**
+     * @param logStream Log stream to read (until end of stream).
+     * @param stdoutSink Stdout lines consumer (may be <code>null</code>).
+     * @param stderrSink Stderr lines consumer (may be <code>null</code>).
+     * @param combinedSink Consumer of both stdout and stderr lines (may be <code>null</code>).
+     */
+    public LogDemuxer(LogStream logStream, LineListener stdoutSink, LineListener stderrSink, LineListener combinedSink) {
+        this.logStream = logStream;
+        this.stdout = new LineAssembler(stdoutSink, combinedSink);
+        this.stderr = new LineAssembler(stderrSink, combinedSink);
+    }
+
+    @Override
+    public void run() {
+        log.trace("demuxer started");
+        try {
+            while (logStream.hasNext()) {
+                LogMessage message = logStream.next();
+                switch (message.stream()) {
+                    case STDOUT:
+                        stdout.append(message.content());
+                        break;
+                    case STDERR:
+                        stderr.append(message.content());
+                        break;
+                    default:
+                        log.trace("ignored frame of stream {}", message.stream());
+                }
+            }
+            completed = true;
+        } catch (RuntimeException e) {
+            // closing stream is the way reading is cancelled
+            log.trace("log stream read interrupted: {}", e.getMessage());
+        } finally {
+            stdout.flush();
+            stderr.flush();
+        }
+        log.trace("demuxer terminated");
+    }
+
+    /**
+     * Whether whole log stream was read (reading was not interrupted).
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+}
@@ -0,0 +1,24 @@
+package pl.domzal.junit.docker.rule.logs;
+
+/**
+ * What to do with container log line printed when {@link AsyncLogWriter} queue is full.
+ */
+public enum LogOverflowPolicy {
+
+    /**
+     * Wait for free space in queue (log reading is slowed down, no line is lost).
+     */
+    BLOCK,
+
+    /**
+     * Drop oldest queued line.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Print only every {@value AsyncLogWriter#SAMPLE_RATE}-th line of container while queue is at least half full,
+     * drop new line when queue is full.
+     */
+    SAMPLE
+
+}
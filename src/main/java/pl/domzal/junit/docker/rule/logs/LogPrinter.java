@@ -1,45 +1,55 @@
 package pl.domzal.junit.docker.rule.logs;
 
-import java.io.InputStream;
 import java.io.PrintStream;
-import java.util.Scanner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import pl.domzal.junit.docker.rule.wait.LineListener;
 
-public class LogPrinter implements Runnable {
+/**
+ * Prints log lines (with given prefix) to output stream - directly or through {@link AsyncLogWriter}.
+ */
+public class LogPrinter implements LineListener {
 
     private static Logger log = LoggerFactory.getLogger(LogPrinter.class);
 
     private final String prefix;
-    private final InputStream scannedInputStream;
     private final PrintStream output;
-    private final LineListener lineListener;
 
-    public LogPrinter(String prefix, InputStream scannedInputStream, PrintStream output, LineListener lineListener) {
+    private final AsyncLogWriter writer;
+    private final LogOverflowPolicy overflowPolicy;
+    private long lineNumber = 0;
+
+    /**
+     * Printer writing lines on caller thread.
+     */
+    public LogPrinter(String prefix, PrintStream output) {
+        this(prefix, output, null, null);
+    }
+
+    /**
+     * Printer queueing lines to given writer.
+     */
+    public LogPrinter(String prefix, PrintStream output, AsyncLogWriter writer, LogOverflowPolicy overflowPolicy) {
         this.prefix = prefix;
-        this.scannedInputStream = scannedInputStream;
         this.output = output;
-        this.lineListener = lineListener;
+        this.writer = writer;
+        this.overflowPolicy = overflowPolicy;
     }
 
     @Override
-    public void run() {
-        log.trace("{} printer thread started", prefix);
-        try (Scanner scanner = new Scanner(scannedInputStream)) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                log.trace("{} line: {}", prefix, line);
-                if (output != null) {
-                    output.println(prefix + line);
-                }
-                if (lineListener != null) {
-                    lineListener.nextLine(line);
-                }
-            }
+    public void nextLine(String line) {
+        log.trace("{} line: {}", prefix, line);
+        if (writer == null) {
+            output.println(prefix + line);
+            return;
+        }
+        try {
+            writer.write(output, prefix, line, overflowPolicy, lineNumber++);
+        } catch (InterruptedException e) {
+            log.debug("{} interrupted while waiting for log writer, line not printed", prefix);
+            Thread.currentThread().interrupt();
         }
-        log.trace("{} printer thread terminated", prefix);
     }
 }
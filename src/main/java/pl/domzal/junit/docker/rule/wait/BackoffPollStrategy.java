@@ -0,0 +1,65 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link PollStrategy} starting with short delays growing exponentially up to given limit,
+ * so fast starting containers are detected quickly and slow ones are not hammered with probes.
+ * Delays can be randomized (by given fraction) to spread checks of many containers in time.
+ */
+public class BackoffPollStrategy implements PollStrategy {
+
+    public static final long DEFAULT_FIRST_DELAY_MS = 10;
+    public static final double DEFAULT_MULTIPLIER = 2;
+    public static final long DEFAULT_MAX_DELAY_MS = 1000;
+    public static final double DEFAULT_JITTER = 0.1;
+
+    private final long firstDelayMs;
+    private final double multiplier;
+    private final long maxDelayMs;
+    private final double jitter;
+
+    /**
+     * @param firstDelayMs Delay before second check (first check is done immediately).
+     * @param multiplier Every next delay is longer by given factor.
+     * @param maxDelayMs Delay limit.
+     * @param jitter Random part of delay (fraction, delay is randomized by up to +/- given part).
+     */
+    public BackoffPollStrategy(long firstDelayMs, double multiplier, long maxDelayMs, double jitter) {
+        if (firstDelayMs < 0 || multiplier < 1 || maxDelayMs < firstDelayMs || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException(String.format("invalid poll strategy: first delay %dms, multiplier %s, max delay %dms, jitter %s", firstDelayMs, multiplier, maxDelayMs, jitter));
+        }
+        this.firstDelayMs = firstDelayMs;
+        this.multiplier = multiplier;
+        this.maxDelayMs = maxDelayMs;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Default strategy - {@value #DEFAULT_FIRST_DELAY_MS}ms growing {@value #DEFAULT_MULTIPLIER} times up to
+     * {@value #DEFAULT_MAX_DELAY_MS}ms, randomized by {@value #DEFAULT_JITTER}.
+     */
+    public static BackoffPollStrategy defaultStrategy() {
+        return new BackoffPollStrategy(DEFAULT_FIRST_DELAY_MS, DEFAULT_MULTIPLIER, DEFAULT_MAX_DELAY_MS, DEFAULT_JITTER);
+    }
+
+    /**
+     * Constant delay between checks.
+     */
+    public static BackoffPollStrategy fixed(long delayMs) {
+        return new BackoffPollStrategy(delayMs, 1, delayMs, 0);
+    }
+
+    @Override
+    public long delayMs(int check) {
+        if (check <= 0) {
+            return 0;
+        }
+        double delay = Math.min(maxDelayMs, firstDelayMs * Math.pow(multiplier, check - 1));
+        if (jitter > 0) {
+            delay += delay * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+        return Math.round(delay);
+    }
+
+}
@@ -5,17 +5,17 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.RequestBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Check whether a given URL is available
+ * Check whether a given URL is available. Requests are sent with {@link HttpPingClient#shared() shared}
+ * connection pool, so connection is reused between checks.
  */
 public class HttpPingChecker implements StartConditionCheck {
 
+    private static final Logger log = LoggerFactory.getLogger(HttpPingChecker.class);
+
     // Default status codes
     public static final int DEFAULT_MIN_STATUS = 200;
     public static final int DEFAULT_MAX_STATUS = 399;
@@ -29,6 +29,15 @@ public class HttpPingChecker implements StartConditionCheck {
     // Disable HTTP client retries by default.
     public static final int HTTP_CLIENT_RETRIES = 0;
 
+    private static final RequestConfig REQUEST_CONFIG =
+            RequestConfig.custom()
+                    .setSocketTimeout(HTTP_PING_TIMEOUT)
+                    .setConnectTimeout(HTTP_PING_TIMEOUT)
+                    .setConnectionRequestTimeout(HTTP_PING_TIMEOUT)
+                    .build();
+
+    private final HttpPingClient client;
+
     private int statusMin, statusMax;
     private String url;
     private String method;
@@ -41,6 +50,11 @@ public class HttpPingChecker implements StartConditionCheck {
      * @param statusPattern Status code(s) to match. May be specified as single number ("302") or status range ("200..302").
      */
     public HttpPingChecker(String waitUrl, String method, String statusPattern) {
+        this(waitUrl, method, statusPattern, HttpPingClient.shared());
+    }
+
+    HttpPingChecker(String waitUrl, String method, String statusPattern, HttpPingClient client) {
+        this.client = client;
         this.url = waitUrl;
         this.method = method;
 
@@ -87,32 +101,15 @@ public class HttpPingChecker implements StartConditionCheck {
     }
 
     private boolean ping() throws IOException {
-        RequestConfig requestConfig =
-                RequestConfig.custom()
-                        .setSocketTimeout(HTTP_PING_TIMEOUT)
-                        .setConnectTimeout(HTTP_PING_TIMEOUT)
-                        .setConnectionRequestTimeout(HTTP_PING_TIMEOUT)
-                        .build();
-        CloseableHttpClient httpClient = HttpClientBuilder.create()
-                .setDefaultRequestConfig(requestConfig)
-                .setRetryHandler(new DefaultHttpRequestRetryHandler(HTTP_CLIENT_RETRIES, false))
-                .build();
-        try {
-            CloseableHttpResponse response = httpClient.execute(RequestBuilder.create(method.toUpperCase()).setUri(url).build());
-            try {
-                int responseCode = response.getStatusLine().getStatusCode();
-                if (responseCode == 501) {
-                    throw new IllegalArgumentException("Invalid or not supported HTTP method '" + method.toUpperCase() + "' for checking " + url);
-                }
-                return (responseCode >= statusMin && responseCode <= statusMax);
-            } finally {
-                response.close();
-            }
-        } finally {
-            httpClient.close();
+        int responseCode = client.execute(method.toUpperCase(), url, REQUEST_CONFIG);
+        if (responseCode == 501) {
+            throw new IllegalArgumentException("Invalid or not supported HTTP method '" + method.toUpperCase() + "' for checking " + url);
         }
+        return (responseCode >= statusMin && responseCode <= statusMax);
     }
 
     @Override
-    public void after() { }
+    public void after() {
+        log.debug("{}", client);
+    }
 }
@@ -0,0 +1,159 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection pooling http client shared by all http readiness probes ({@link HttpPingChecker}) in JVM.
+ * Connections are kept alive between probes of the same endpoint, so polling does not open
+ * new connection on every check. Pool size can be set with {@value #MAX_CONNECTIONS_PROPERTY} system
+ * property (default {@value #DEFAULT_MAX_CONNECTIONS}), connections idle for
+ * {@value #IDLE_CONNECTION_TIMEOUT_SEC}s (like ones to already removed containers) are closed.
+ * <p>
+ * Probe count and latency are collected for diagnostics.
+ */
+public class HttpPingClient implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPingClient.class);
+
+    static final String MAX_CONNECTIONS_PROPERTY = "junit.docker.rule.httpPingMaxConnections";
+    static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 2;
+    private static final int IDLE_CONNECTION_TIMEOUT_SEC = 10;
+
+    private static final HttpPingClient shared = new HttpPingClient(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    private final AtomicLong probeCount = new AtomicLong();
+    private final AtomicLong failedProbeCount = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * @param maxConnections Max number of connections (to all endpoints).
+     */
+    HttpPingClient(int maxConnections) {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(Math.max(1, maxConnections));
+        this.connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        this.httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(HttpPingChecker.HTTP_CLIENT_RETRIES, false))
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT_SEC, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Client shared by all probes in JVM.
+     */
+    public static HttpPingClient shared() {
+        return shared;
+    }
+
+    /**
+     * Send request and return response status. Response content is consumed so connection
+     * can be reused by next probe.
+     *
+     * @param method HTTP method.
+     * @param url Request URL.
+     * @param requestConfig Request timeouts.
+     * @return Response status code.
+     */
+    public int execute(String method, String url, RequestConfig requestConfig) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            CloseableHttpResponse response = httpClient.execute(RequestBuilder.create(method).setUri(url).setConfig(requestConfig).build());
+            try {
+                EntityUtils.consume(response.getEntity());
+                failed = false;
+                return response.getStatusLine().getStatusCode();
+            } finally {
+                response.close();
+            }
+        } finally {
+            long latencyNanos = System.nanoTime() - start;
+            recordProbe(latencyNanos, failed);
+            log.trace("{} {} {} in {}ms", method, url, failed ? "failed" : "done", TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+    }
+
+    private void recordProbe(long latencyNanos, boolean failed) {
+        probeCount.incrementAndGet();
+        if (failed) {
+            failedProbeCount.incrementAndGet();
+        }
+        totalLatencyNanos.addAndGet(latencyNanos);
+        long max = maxLatencyNanos.get();
+        while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+            max = maxLatencyNanos.get();
+        }
+    }
+
+    /**
+     * Number of probes sent.
+     */
+    public long probeCount() {
+        return probeCount.get();
+    }
+
+    /**
+     * Number of probes with no response (connection refused, timeout etc).
+     */
+    public long failedProbeCount() {
+        return failedProbeCount.get();
+    }
+
+    /**
+     * Average probe time (failed probes included) [ms].
+     */
+    public double averageLatencyMs() {
+        long count = probeCount.get();
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get()) / count / 1000;
+    }
+
+    /**
+     * Longest probe time [ms].
+     */
+    public long maxLatencyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    /**
+     * Number of connections kept open (in use or idle).
+     */
+    public int openConnections() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return stats.getLeased() + stats.getAvailable();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("http ping client: %d probes (%d failed), latency avg %.1fms max %dms, %d open connections",
+                probeCount(), failedProbeCount(), averageLatencyMs(), maxLatencyMs(), openConnections());
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+}
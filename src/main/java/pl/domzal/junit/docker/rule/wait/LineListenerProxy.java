@@ -1,5 +1,7 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -8,69 +10,159 @@ import com.google.common.collect.Lists;
  * {@link LineListener} that can proxy line to set of underlying
  * listeners with additional skill of replying lines history to listeners
  * registered later.
- * Replayed history size is limited to {@value #DEFAULT_HISTORY_LIMIT}.
+ * Replayed history size is limited to {@value #DEFAULT_HISTORY_LIMIT} lines
+ * and {@value #DEFAULT_HISTORY_CHAR_LIMIT} characters by default.
+ * <p>
+ * History is replayed to registered listener outside of lock - lines proxied in the meantime
+ * are queued for that listener and passed right after history, so neither producer
+ * nor other listeners wait for replay.
  */
 public class LineListenerProxy implements LineListener {
 
-    private static final int DEFAULT_HISTORY_LIMIT = 1000;
+    public static final int DEFAULT_HISTORY_LIMIT = 1000;
+    public static final int DEFAULT_HISTORY_CHAR_LIMIT = 1000000;
 
-    private final int historyLimit;
+    private final int historyCharLimit;
 
     /**
-     * Lines already proxied to listeners. Allows passing lines from the past to
-     * late registered listeners. Size of history is limited to {@link #DEFAULT_HISTORY_LIMIT}. */
-    private final List<String> history;
+     * Lines already proxied to listeners (ring buffer). Allows passing lines from the past to
+     * late registered listeners. */
+    private final String[] history;
 
-    /** Points to first empty slot in {@link #history}. */
-    private int historyFirstFreeSlot = 0;
+    /** Index of oldest line in {@link #history}. */
+    private int historyHead = 0;
+    /** Number of lines in {@link #history}. */
+    private int historySize = 0;
+    /** Number of characters of all lines in {@link #history}. */
+    private long historyChars = 0;
+    /** Some lines were removed from {@link #history}. */
+    private boolean historyTruncated = false;
 
-    private final List<LineListener> listeners = Lists.newArrayList();
+    private final List<Registration> registrations = Lists.newArrayList();
 
     public LineListenerProxy() {
         this(DEFAULT_HISTORY_LIMIT);
     }
 
     LineListenerProxy(int historyLimit) {
-        this.historyLimit = historyLimit;
-        this.history = Lists.newLinkedList();
+        this(historyLimit, DEFAULT_HISTORY_CHAR_LIMIT);
+    }
+
+    /**
+     * @param historyLimit Max number of lines kept for late registered listeners.
+     * @param historyCharLimit Max number of characters (of all lines) kept for late registered listeners.
+     */
+    public LineListenerProxy(int historyLimit, int historyCharLimit) {
+        this.history = new String[Math.max(1, historyLimit)];
+        this.historyCharLimit = historyCharLimit;
     }
 
     @Override
     public synchronized void nextLine(String line) {
-        // bufer limit reached ?
-        if (historyFirstFreeSlot == historyLimit) {
-            // remove oldest message
-            history.remove(0);
-            // current empty slot will be one before
-            historyFirstFreeSlot--;
-        }
-        // append next line to history and update pointer to next free slot
-        history.add(line);
-        historyFirstFreeSlot++;
+        appendToHistory(line);
         // pass line to current listeners
-        for (LineListener listener : listeners) {
+        for (Registration registration : registrations) {
+            if (registration.live) {
+                registration.listener.nextLine(line);
+            } else {
+                registration.backlog.add(line);
+            }
+        }
+    }
+
+    private void appendToHistory(String line) {
+        if (historySize == history.length) {
+            removeOldest();
+        }
+        history[(historyHead + historySize) % history.length] = line;
+        historySize++;
+        historyChars += line.length();
+        // always keep last line
+        while (historyChars > historyCharLimit && historySize > 1) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        historyChars -= history[historyHead].length();
+        history[historyHead] = null;
+        historyHead = (historyHead + 1) % history.length;
+        historySize--;
+        historyTruncated = true;
+    }
+
+    /**
+     * Whether some lines are no longer kept in history (and will not be replayed to listeners registered now).
+     */
+    public synchronized boolean isHistoryTruncated() {
+        return historyTruncated;
+    }
+
+    private String[] historySnapshot() {
+        String[] snapshot = new String[historySize];
+        int firstPart = Math.min(historySize, history.length - historyHead);
+        System.arraycopy(history, historyHead, snapshot, 0, firstPart);
+        System.arraycopy(history, 0, snapshot, firstPart, historySize - firstPart);
+        return snapshot;
+    }
+
+    public void addAll(List<LineListener> lineListeners) {
+        for (LineListener listener : lineListeners) {
+            add(listener);
+        }
+    }
+
+    public void add(LineListener listener) {
+        Registration registration = new Registration(listener);
+        String[] snapshot;
+        synchronized (this) {
+            snapshot = historySnapshot();
+            registrations.add(registration);
+        }
+        // reply history
+        for (String line : snapshot) {
             listener.nextLine(line);
         }
+        // pass lines proxied during replay, then switch to direct proxying
+        while (true) {
+            List<String> backlog;
+            synchronized (this) {
+                if (registration.backlog.isEmpty()) {
+                    registration.live = true;
+                    return;
+                }
+                backlog = registration.backlog;
+                registration.backlog = new ArrayList<>();
+            }
+            for (String line : backlog) {
+                listener.nextLine(line);
+            }
+        }
     }
 
-    public synchronized void addAll(List<LineListener> lineListeners) {
-        // reply history to new listeners
-        for (int i = 0; i < historyFirstFreeSlot; i++) {
-            for (LineListener newListener : lineListeners) {
-                newListener.nextLine(history.get(i));
+    /**
+     * Stop proxying lines to given listener.
+     */
+    public synchronized void remove(LineListener listener) {
+        Iterator<Registration> iterator = registrations.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().listener == listener) {
+                iterator.remove();
             }
         }
-        // register listeners
-        listeners.addAll(lineListeners);
     }
 
-    public synchronized void add(LineListener listener) {
-        // reply history
-        for (int i = 0; i < historyFirstFreeSlot; i++) {
-            listener.nextLine(history.get(i));
+    private static class Registration {
+
+        private final LineListener listener;
+        /** Lines proxied while history was replayed. */
+        private List<String> backlog = new ArrayList<>();
+        /** History replayed, lines are passed directly. */
+        private boolean live = false;
+
+        Registration(LineListener listener) {
+            this.listener = listener;
         }
-        // register
-        listeners.add(listener);
     }
 
 }
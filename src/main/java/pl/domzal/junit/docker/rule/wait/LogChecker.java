@@ -1,23 +1,75 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import pl.domzal.junit.docker.rule.DockerRule;
 
 /**
- * {@link StartConditionCheck} met when container log lines contains specified message.
+ * {@link StartConditionCheck} met when container log line contains specified message.
+ * Must be registered as {@link LineListener} of container log - every line is examined
+ * once, as it arrives, and waiting code is notified immediately when message is found.
  */
-public class LogChecker implements StartConditionCheck {
+public class LogChecker implements LineListener, LogLiteralsListener, NotifyingStartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(LogChecker.class);
 
-    private final DockerRule rule;
     private final String waitForMessage;
 
-    public LogChecker(DockerRule rule, String waitForMessage) {
-        this.rule = rule;
+    private volatile boolean found = false;
+    private volatile Runnable changeListener;
+
+    public LogChecker(String waitForMessage) {
         this.waitForMessage = waitForMessage;
     }
 
+    /**
+     * @deprecated Log is no longer fetched from rule, use {@link #LogChecker(String)} instead.
+     */
+    @Deprecated
+    public LogChecker(DockerRule rule, String waitForMessage) {
+        this(waitForMessage);
+    }
+
+    @Override
+    public void nextLine(String line) {
+        if (!found && line.contains(waitForMessage)) {
+            log.debug("message '{}' found in '{}'", waitForMessage, line);
+            found = true;
+            Runnable currentChangeListener = changeListener;
+            if (currentChangeListener != null) {
+                currentChangeListener.run();
+            }
+        }
+    }
+
+    @Override
+    public List<String> literals() {
+        return Collections.singletonList(waitForMessage);
+    }
+
+    @Override
+    public void literalsFound(String line, BitSet found) {
+        nextLine(line);
+    }
+
+    @Override
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    @Override
+    public boolean isChangeNotified() {
+        return true;
+    }
+
     @Override
     public boolean check() {
-        return rule.getLog().contains(waitForMessage);
+        return found;
     }
 
     @Override
@@ -0,0 +1,26 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Log listener interested only in lines containing any of given literal patterns.
+ * All such listeners of a rule are served by single {@link LogLiteralsMatcher}
+ * which scans every line once, regardless of number of listeners and patterns.
+ */
+public interface LogLiteralsListener {
+
+    /**
+     * Literal patterns (searched for anywhere in line). Must not change after registration.
+     */
+    List<String> literals();
+
+    /**
+     * Line containing at least one of {@link #literals()}.
+     *
+     * @param line Log line.
+     * @param found Indexes (in {@link #literals()}) of patterns found in line.
+     */
+    void literalsFound(String line, BitSet found);
+
+}
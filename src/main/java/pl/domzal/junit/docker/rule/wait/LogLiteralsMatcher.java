@@ -0,0 +1,138 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * {@link LineListener} searching every line for literal patterns of all given {@link LogLiteralsListener}s
+ * at once (with Aho-Corasick automaton built from all patterns) and passing line to listeners
+ * whose patterns were found.
+ */
+public class LogLiteralsMatcher implements LineListener {
+
+    private static final int ROOT = 0;
+
+    private final List<LogLiteralsListener> listeners;
+
+    /** Per listener: pattern index in listener to global pattern index. */
+    private final int[][] listenerPatterns;
+
+    /** Automaton transitions (node to next node by character). */
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    /** Automaton fail links. */
+    private final List<Integer> fail = new ArrayList<>();
+    /** Global indexes of patterns found when automaton reaches node. */
+    private final List<BitSet> output = new ArrayList<>();
+
+    public LogLiteralsMatcher(List<LogLiteralsListener> listeners) {
+        this.listeners = new ArrayList<>(listeners);
+        this.listenerPatterns = new int[listeners.size()][];
+        Map<String, Integer> patterns = new LinkedHashMap<>();
+        for (int i = 0; i < listeners.size(); i++) {
+            List<String> literals = listeners.get(i).literals();
+            listenerPatterns[i] = new int[literals.size()];
+            for (int j = 0; j < literals.size(); j++) {
+                Integer patternIndex = patterns.get(literals.get(j));
+                if (patternIndex == null) {
+                    patternIndex = patterns.size();
+                    patterns.put(literals.get(j), patternIndex);
+                }
+                listenerPatterns[i][j] = patternIndex;
+            }
+        }
+        buildAutomaton(new ArrayList<>(patterns.keySet()));
+    }
+
+    private void buildAutomaton(List<String> patterns) {
+        newNode();
+        for (int p = 0; p < patterns.size(); p++) {
+            int node = ROOT;
+            String pattern = patterns.get(p);
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = transitions.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(node).put(pattern.charAt(i), next);
+                }
+                node = next;
+            }
+            output.get(node).set(p);
+        }
+        // breadth first fail links, outputs of fail link target are inherited
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (Integer child : transitions.get(ROOT).values()) {
+            fail.set(child, ROOT);
+            output.get(child).or(output.get(ROOT));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (Map.Entry<Character, Integer> transition : transitions.get(node).entrySet()) {
+                int child = transition.getValue();
+                int failNode = fail.get(node);
+                while (failNode != ROOT && !transitions.get(failNode).containsKey(transition.getKey())) {
+                    failNode = fail.get(failNode);
+                }
+                Integer failTarget = transitions.get(failNode).get(transition.getKey());
+                fail.set(child, (failTarget != null && failTarget != child) ? failTarget : ROOT);
+                output.get(child).or(output.get(fail.get(child)));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<Character, Integer>());
+        fail.add(ROOT);
+        output.add(new BitSet());
+        return transitions.size() - 1;
+    }
+
+    /**
+     * Global indexes of all patterns found in line.
+     */
+    BitSet find(String line) {
+        BitSet found = new BitSet();
+        found.or(output.get(ROOT));
+        int node = ROOT;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            Integer next;
+            while ((next = transitions.get(node).get(c)) == null && node != ROOT) {
+                node = fail.get(node);
+            }
+            node = (next != null) ? next : ROOT;
+            found.or(output.get(node));
+        }
+        return found;
+    }
+
+    @Override
+    public void nextLine(String line) {
+        BitSet found = find(line);
+        if (found.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            BitSet listenerFound = null;
+            for (int j = 0; j < listenerPatterns[i].length; j++) {
+                if (found.get(listenerPatterns[i][j])) {
+                    if (listenerFound == null) {
+                        listenerFound = new BitSet(listenerPatterns[i].length);
+                    }
+                    listenerFound.set(j);
+                }
+            }
+            if (listenerFound != null) {
+                listeners.get(i).literalsFound(line, listenerFound);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link StartConditionCheck} met when container log line matches (contains match of)
+ * specified regular expression. Must be registered as {@link LineListener} of container log.
+ */
+public class LogRegexChecker implements LineListener, NotifyingStartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(LogRegexChecker.class);
+
+    private final Pattern pattern;
+
+    private volatile boolean found = false;
+    private volatile Runnable changeListener;
+
+    public LogRegexChecker(String regex) {
+        this.pattern = Pattern.compile(regex);
+    }
+
+    @Override
+    public void nextLine(String line) {
+        if (!found && pattern.matcher(line).find()) {
+            log.debug("pattern '{}' found in '{}'", pattern, line);
+            found = true;
+            Runnable currentChangeListener = changeListener;
+            if (currentChangeListener != null) {
+                currentChangeListener.run();
+            }
+        }
+    }
+
+    @Override
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    @Override
+    public boolean isChangeNotified() {
+        return true;
+    }
+
+    @Override
+    public boolean check() {
+        return found;
+    }
+
+    @Override
+    public String describe() {
+        return String.format("log message matching '%s'", pattern);
+    }
+
+    @Override
+    public void after() { }
+
+}
@@ -1,5 +1,6 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -8,9 +9,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * {@link StartConditionCheck} met when incoming log lines contains specified
- * message sequence..
+ * message sequence. Waiting code is notified as soon as last message of sequence is found.
  */
-public class LogSequenceChecker implements LineListener, StartConditionCheck {
+public class LogSequenceChecker implements LineListener, LogLiteralsListener, NotifyingStartConditionCheck {
 
     private static Logger log = LoggerFactory.getLogger(LogSequenceChecker.class);
 
@@ -18,10 +19,22 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
 
     private AtomicInteger currentIndex = new AtomicInteger();
 
+    private volatile Runnable changeListener;
+
     public LogSequenceChecker(List<String> logSequence) {
         this.logSequence = logSequence;
     }
 
+    @Override
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    @Override
+    public boolean isChangeNotified() {
+        return true;
+    }
+
     @Override
     public boolean check() {
         return currentIndex.get() >= logSequence.size();
@@ -35,6 +48,22 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
     @Override
     public void after() { }
 
+    @Override
+    public List<String> literals() {
+        return logSequence;
+    }
+
+    @Override
+    public void literalsFound(String line, BitSet found) {
+        if (!check()) {
+            int currentLineIndex = currentIndex.get();
+            if (found.get(currentLineIndex)) {
+                log.info("pattern {}:'{}' found in '{}'", currentLineIndex, logSequence.get(currentLineIndex), line);
+                advance();
+            }
+        }
+    }
+
     @Override
     public void nextLine(String line) {
         if (!check()) {
@@ -42,7 +71,7 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
             String waitForLine = logSequence.get(currentLineIndex);
             if (line.contains(waitForLine)) {
                 log.info("pattern {}:'{}' found in '{}'", currentLineIndex, waitForLine, line);
-                currentIndex.incrementAndGet();
+                advance();
             } else {
                 log.trace("pattern {}:'{}' not found", currentLineIndex, waitForLine);
 
@@ -50,4 +79,13 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
         }
     }
 
+    private void advance() {
+        if (currentIndex.incrementAndGet() == logSequence.size()) {
+            Runnable currentChangeListener = changeListener;
+            if (currentChangeListener != null) {
+                currentChangeListener.run();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,21 @@
+package pl.domzal.junit.docker.rule.wait;
+
+/**
+ * Start condition check able to notify waiting code its state might have changed,
+ * so {@link #check()} is evaluated right after the change instead of at next poll.
+ * While {@link #isChangeNotified()} holds waiting code does not poll at all.
+ */
+public interface NotifyingStartConditionCheck extends StartConditionCheck {
+
+    /**
+     * Register callback to be run (on any thread) whenever condition state might have changed.
+     */
+    void setChangeListener(Runnable changeListener);
+
+    /**
+     * Whether every state change is (currently) notified to change listener. When <code>false</code>
+     * waiting code polls {@link #check()} in addition to reacting on notifications.
+     */
+    boolean isChangeNotified();
+
+}
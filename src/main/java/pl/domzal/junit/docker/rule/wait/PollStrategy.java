@@ -0,0 +1,16 @@
+package pl.domzal.junit.docker.rule.wait;
+
+/**
+ * Delays between checks of pull-based (polled) {@link StartConditionCheck}.
+ */
+public interface PollStrategy {
+
+    /**
+     * Delay before given check.
+     *
+     * @param check Number of check (counted from 0 - first check).
+     * @return Delay in milliseconds.
+     */
+    long delayMs(int check);
+
+}
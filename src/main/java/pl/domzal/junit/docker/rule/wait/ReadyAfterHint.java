@@ -0,0 +1,13 @@
+package pl.domzal.junit.docker.rule.wait;
+
+/**
+ * {@link StartConditionCheck} knowing when it may be met at the earliest - it is not polled before given time.
+ */
+public interface ReadyAfterHint {
+
+    /**
+     * Time (since wait start) condition is expected to be met after [ms].
+     */
+    long expectedReadyAfterMs();
+
+}
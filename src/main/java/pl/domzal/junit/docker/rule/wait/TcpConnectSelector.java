@@ -0,0 +1,204 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Non-blocking TCP connect probes. Connections to all given addresses are started at once and
+ * completed by single selector thread shared by all tcp port checks in JVM, so checking many
+ * ports takes as long as slowest connect (at most given timeout), not sum of them.
+ */
+class TcpConnectSelector {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpConnectSelector.class);
+
+    private static final ThreadFactory selectorThreadFactory = new ThreadFactoryBuilder()//
+            .setNameFormat("tcp-connect-selector-%d")//
+            .setDaemon(true)//
+            .build();
+
+    private static final TcpConnectSelector shared = new TcpConnectSelector();
+
+    private final Queue<Probe> registrations = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+
+    /**
+     * Selector shared by all probes in JVM.
+     */
+    static TcpConnectSelector shared() {
+        return shared;
+    }
+
+    /**
+     * Try to connect to all given addresses (concurrently).
+     *
+     * @param addresses Addresses to connect to.
+     * @param timeoutMs Connect timeout [ms].
+     * @return Addresses connection was established to (connections are closed right away).
+     */
+    Set<InetSocketAddress> connect(Collection<InetSocketAddress> addresses, int timeoutMs) throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(addresses.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<Probe> probes = new ArrayList<>();
+        for (InetSocketAddress address : addresses) {
+            Probe probe = new Probe(address, deadline, completed);
+            probes.add(probe);
+            probe.start();
+        }
+        // expired probes are completed by selector thread, wait a bit longer for it
+        completed.await(timeoutMs + 100, TimeUnit.MILLISECONDS);
+        Set<InetSocketAddress> connected = new LinkedHashSet<>();
+        for (Probe probe : probes) {
+            if (probe.connected) {
+                connected.add(probe.address);
+            }
+        }
+        return connected;
+    }
+
+    private synchronized Selector selector() throws IOException {
+        if (selector == null) {
+            selector = Selector.open();
+            selectorThreadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    selectLoop();
+                }
+            }).start();
+        }
+        return selector;
+    }
+
+    private void enqueue(Probe probe) throws IOException {
+        Selector selector = selector();
+        registrations.add(probe);
+        selector.wakeup();
+    }
+
+    private void selectLoop() {
+        while (true) {
+            try {
+                Probe registered;
+                while ((registered = registrations.poll()) != null) {
+                    registered.registerWith(selector);
+                }
+                selector.select(nextDeadlineMs());
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    ((Probe) key.attachment()).finishConnect();
+                }
+                long now = System.nanoTime();
+                for (SelectionKey key : selector.keys()) {
+                    Probe probe = (Probe) key.attachment();
+                    if (key.isValid() && now - probe.deadline >= 0) {
+                        probe.complete(false);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("tcp connect selector failure", e);
+            }
+        }
+    }
+
+    /**
+     * Time to nearest probe deadline [ms], 0 (no timeout) when there is no probe.
+     */
+    private long nextDeadlineMs() {
+        long now = System.nanoTime();
+        long nearest = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                nearest = Math.min(nearest, ((Probe) key.attachment()).deadline - now);
+            }
+        }
+        return nearest == Long.MAX_VALUE ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(nearest) + 1);
+    }
+
+    private class Probe {
+
+        private final InetSocketAddress address;
+        private final long deadline;
+        private final CountDownLatch completed;
+        private SocketChannel channel;
+        private volatile boolean connected = false;
+        private boolean done = false;
+
+        Probe(InetSocketAddress address, long deadline, CountDownLatch completed) {
+            this.address = address;
+            this.deadline = deadline;
+            this.completed = completed;
+        }
+
+        void start() {
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (channel.connect(address)) {
+                    complete(true);
+                } else {
+                    enqueue(this);
+                }
+            } catch (IOException | RuntimeException e) {
+                // port not open yet or address not resolved
+                complete(false);
+            }
+        }
+
+        void registerWith(Selector selector) {
+            try {
+                channel.register(selector, SelectionKey.OP_CONNECT, this);
+            } catch (IOException e) {
+                complete(false);
+            }
+        }
+
+        void finishConnect() {
+            try {
+                if (channel.finishConnect()) {
+                    complete(true);
+                }
+            } catch (IOException e) {
+                complete(false);
+            }
+        }
+
+        synchronized void complete(boolean connected) {
+            if (done) {
+                return;
+            }
+            done = true;
+            this.connected = connected;
+            if (channel != null) {
+                try {
+                    // closing also cancels selection key
+                    channel.close();
+                } catch (IOException e) {
+                    log.debug("error closing connection to {}", address, e);
+                }
+            }
+            completed.countDown();
+        }
+    }
+
+}
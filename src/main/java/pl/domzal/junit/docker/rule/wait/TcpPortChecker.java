@@ -1,27 +1,32 @@
 package pl.domzal.junit.docker.rule.wait;
 
-import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 /**
- * Check whether a given TCP port is available
+ * Check whether a given TCP port is available. All pending ports are checked at once
+ * with non-blocking connects (see {@link TcpConnectSelector}).
  */
 public class TcpPortChecker implements StartConditionCheck {
 
     // Timeout for ping
     private static final int TCP_PING_TIMEOUT = 500;
 
+    private final TcpConnectSelector connectSelector;
+
     private final String host;
     private final List<Integer> ports;
 
     private final List<InetSocketAddress> pending;
 
     public TcpPortChecker(String host, List<Integer> ports) {
+        this(host, ports, TcpConnectSelector.shared());
+    }
+
+    TcpPortChecker(String host, List<Integer> ports, TcpConnectSelector connectSelector) {
+        this.connectSelector = connectSelector;
         this.host = host;
         this.ports = ports;
 
@@ -42,21 +47,12 @@ public class TcpPortChecker implements StartConditionCheck {
 
     @Override
     public boolean check() {
-        Iterator<InetSocketAddress> iter = pending.iterator();
-
-        while (iter.hasNext()) {
-            InetSocketAddress address = iter.next();
-
+        if (!pending.isEmpty()) {
             try {
-                Socket s = new Socket();
-                s.connect(address, TCP_PING_TIMEOUT);
-                s.close();
-                iter.remove();
-            } catch (IOException e) {
-                // Ports isn't opened, yet. So don't remove from queue.
-
+                pending.removeAll(connectSelector.connect(pending, TCP_PING_TIMEOUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-
         }
         return pending.isEmpty();
     }
@@ -0,0 +1,160 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.messages.Event;
+
+public class ContainerEventsTest {
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+
+    private QueueEventStream eventStream = new QueueEventStream();
+
+    private ContainerEvents testee = new ContainerEvents(dockerClient);
+
+    @Before
+    public void setup() throws Exception {
+        testee.startReading(eventStream);
+    }
+
+    @Test
+    public void shouldTrackRunningAndExitCode() throws Exception {
+        // given
+        testee.track("c1");
+        // when
+        eventStream.push(event("c1", "start"));
+        eventStream.push(event("c1", "die", "exitCode", "3"));
+        // then
+        assertEquals(Integer.valueOf(3), testee.awaitExit("c1"));
+        assertEquals(Boolean.FALSE, testee.isRunning("c1"));
+    }
+
+    @Test
+    public void shouldTrackHealthAndOom() throws Exception {
+        testee.track("c1");
+        eventStream.push(event("c1", "start"));
+        eventStream.push(event("c1", "health_status: healthy"));
+        eventStream.push(event("c1", "oom"));
+        eventStream.push(event("c1", "die", "exitCode", "137"));
+        testee.awaitExit("c1");
+        assertEquals("healthy", testee.health("c1"));
+        assertEquals(Boolean.TRUE, testee.isOomKilled("c1"));
+    }
+
+    @Test
+    public void shouldNotKnowRunningStateBeforeFirstEvent() throws Exception {
+        // when
+        testee.track("c1");
+        // then
+        assertTrue(testee.isTracked("c1"));
+        assertNull(testee.isRunning("c1"));
+    }
+
+    @Test
+    public void shouldNotifyListenersOutsideOfLock() throws Exception {
+        // given
+        final CountDownLatch notified = new CountDownLatch(1);
+        final AtomicBoolean lockHeld = new AtomicBoolean(true);
+        testee.track("c1");
+        testee.addListener("c1", new Runnable() {
+            @Override
+            public void run() {
+                lockHeld.set(Thread.holdsLock(testee));
+                notified.countDown();
+            }
+        });
+        // when
+        eventStream.push(event("c1", "start"));
+        // then
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertFalse(lockHeld.get());
+        assertEquals(Boolean.TRUE, testee.isRunning("c1"));
+    }
+
+    @Test
+    public void shouldNotKnowUntrackedContainer() throws Exception {
+        eventStream.push(event("other", "start"));
+        assertNull(testee.isRunning("other"));
+        assertNull(testee.awaitExit("other"));
+    }
+
+    @Test
+    public void shouldForgetStateWhenSubscriptionBroken() throws Exception {
+        // given
+        testee.track("c1");
+        eventStream.push(event("c1", "start"));
+        // when
+        eventStream.end();
+        // then
+        assertNull(testee.awaitExit("c1"));
+        assertNull(testee.isRunning("c1"));
+    }
+
+    private static Event event(String containerId, String action, String... attributes) {
+        Event.Actor actor = mock(Event.Actor.class);
+        when(actor.id()).thenReturn(containerId);
+        when(actor.attributes()).thenReturn(attributes.length > 0 ? ImmutableMap.of(attributes[0], attributes[1]) : ImmutableMap.<String, String>of());
+        Event event = mock(Event.class);
+        when(event.action()).thenReturn(action);
+        when(event.actor()).thenReturn(actor);
+        return event;
+    }
+
+    /**
+     * Events pushed by test, delivered as subscription stream.
+     */
+    private static class QueueEventStream implements Iterator<Event> {
+
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private Object next;
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return next != END;
+        }
+
+        @Override
+        public synchronized Event next() {
+            hasNext();
+            Event event = (Event) next;
+            next = null;
+            return event;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        void push(Event event) {
+            queue.add(event);
+        }
+
+        void end() {
+            queue.add(END);
+        }
+    }
+
+}
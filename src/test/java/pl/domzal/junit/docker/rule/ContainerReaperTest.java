@@ -0,0 +1,107 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerRequestException;
+import com.spotify.docker.client.messages.ContainerInfo;
+import com.spotify.docker.client.messages.ContainerState;
+
+public class ContainerReaperTest {
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+    private ContainerInfo containerInfo = mock(ContainerInfo.class);
+    private ContainerState containerState = mock(ContainerState.class);
+
+    private ContainerReaper testee = new ContainerReaper(1, 1);
+
+    @Before
+    public void setup() throws Exception {
+        when(dockerClient.inspectContainer(anyString())).thenReturn(containerInfo);
+        when(containerInfo.state()).thenReturn(containerState);
+        when(containerState.running()).thenReturn(true);
+    }
+
+    @Test
+    public void shouldStopAndRemoveInBackground() throws Exception {
+        // when
+        testee.teardownAsync(dockerClient, "id1", "id1", new StopOption.StopOptionSet());
+        // then
+        assertTrue(testee.drain(5));
+        verify(dockerClient).stopContainer("id1", ContainerReaper.STOP_TIMEOUT);
+        verify(dockerClient).removeContainer(eq("id1"), any(DockerClient.RemoveContainerParam.class));
+    }
+
+    @Test
+    public void shouldKillAndKeep() throws Exception {
+        // given
+        StopOption.StopOptionSet stopOptions = new StopOption.StopOptionSet();
+        stopOptions.setOptions(StopOption.KILL, StopOption.KEEP);
+        // when
+        testee.teardownAsync(dockerClient, "id1", "id1", stopOptions);
+        // then
+        assertTrue(testee.drain(5));
+        verify(dockerClient).killContainer("id1");
+        verify(dockerClient, never()).removeContainer(anyString(), any(DockerClient.RemoveContainerParam.class));
+    }
+
+    @Test
+    public void shouldTeardownOnCallerThreadWhenTooManyPending() throws Exception {
+        // given - single worker blocked, single pending slot taken
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                blocked.countDown();
+                release.await();
+                return null;
+            }
+        }).when(dockerClient).stopContainer("blocking", ContainerReaper.STOP_TIMEOUT);
+        testee.teardownAsync(dockerClient, "blocking", "blocking", new StopOption.StopOptionSet());
+        blocked.await();
+        testee.teardownAsync(dockerClient, "pending", "pending", new StopOption.StopOptionSet());
+        // when
+        testee.teardownAsync(dockerClient, "overflow", "overflow", new StopOption.StopOptionSet());
+        // then
+        verify(dockerClient).stopContainer("overflow", ContainerReaper.STOP_TIMEOUT);
+        verify(dockerClient, never()).stopContainer("pending", ContainerReaper.STOP_TIMEOUT);
+        release.countDown();
+        assertTrue(testee.drain(5));
+        verify(dockerClient).stopContainer("pending", ContainerReaper.STOP_TIMEOUT);
+    }
+
+    @Test
+    public void shouldTeardownOnCallerThreadAfterShutdown() throws Exception {
+        // given
+        assertTrue(testee.drain(5));
+        // when
+        testee.teardownAsync(dockerClient, "late", "late", new StopOption.StopOptionSet());
+        // then
+        verify(dockerClient).stopContainer("late", ContainerReaper.STOP_TIMEOUT);
+        verify(dockerClient).removeContainer(eq("late"), any(DockerClient.RemoveContainerParam.class));
+    }
+
+    @Test
+    public void shouldForceRemoveWhenContainerStillRunning() throws Exception {
+        // given - stale state, container is running
+        when(containerState.running()).thenReturn(false);
+        DockerRequestException conflict = mock(DockerRequestException.class);
+        when(conflict.status()).thenReturn(409);
+        doThrow(conflict).when(dockerClient).removeContainer("id1", DockerClient.RemoveContainerParam.removeVolumes());
+        // when
+        ContainerReaper.teardown(dockerClient, "id1", "id1", new StopOption.StopOptionSet());
+        // then
+        verify(dockerClient).removeContainer("id1", DockerClient.RemoveContainerParam.forceKill(), DockerClient.RemoveContainerParam.removeVolumes());
+    }
+
+}
@@ -0,0 +1,60 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.spotify.docker.client.messages.ContainerConfig;
+import com.spotify.docker.client.messages.HostConfig;
+
+public class ContainerSnapshotsTest {
+
+    @Test
+    public void shouldIgnoreDynamicLinkTarget() {
+        String first = snapshotHash(config(Collections.<String, String>emptyMap(), "0123456789ab:db"));
+        String second = snapshotHash(config(Collections.<String, String>emptyMap(), "ba9876543210:db"));
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void shouldDependOnLinkAlias() {
+        String first = snapshotHash(config(Collections.<String, String>emptyMap(), "0123456789ab:db"));
+        String second = snapshotHash(config(Collections.<String, String>emptyMap(), "0123456789ab:cache"));
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void shouldIgnoreReuseLabels() {
+        Map<String, String> labels = Collections.singletonMap("some", "label");
+        String plain = snapshotHash(config(labels));
+        String reusable = snapshotHash(config(ReusableContainers.labels(labels, "somehash", 60)));
+
+        assertEquals(plain, reusable);
+    }
+
+    @Test
+    public void shouldDependOnOtherLabels() {
+        String first = snapshotHash(config(Collections.singletonMap("some", "label")));
+        String second = snapshotHash(config(Collections.singletonMap("some", "other")));
+
+        assertNotEquals(first, second);
+    }
+
+    private static String snapshotHash(ContainerConfig containerConfig) {
+        return ContainerConfigHash.of(ContainerSnapshots.runIndependent(containerConfig), "baseImageId");
+    }
+
+    private static ContainerConfig config(Map<String, String> labels, String... links) {
+        return ContainerConfig.builder()//
+                .image("alpine:3.4")//
+                .labels(labels)//
+                .hostConfig(HostConfig.builder().links(links).build())//
+                .build();
+    }
+
+}
@@ -0,0 +1,82 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+
+public class DockerClientRegistryTest {
+
+    private DockerClientRegistry.ClientFactory clientFactory = mock(DockerClientRegistry.ClientFactory.class);
+    private DockerClient client = mock(DockerClient.class);
+
+    @Before
+    public void setup() throws Exception {
+        when(clientFactory.key()).thenReturn("tcp://docker:2376|");
+        when(clientFactory.create()).thenReturn(client);
+    }
+
+    @Test
+    public void shouldShareClientAndHandshakeOnce() throws Exception {
+        // given
+        DockerClientRegistry testee = new DockerClientRegistry(clientFactory, 60);
+        // when
+        DockerClient first = testee.acquire();
+        DockerClient second = testee.acquire();
+        // then
+        assertSame(first, second);
+        assertEquals(2, testee.references(client));
+        verify(clientFactory, times(1)).create();
+        verify(client, times(1)).info();
+        verify(client, times(1)).version();
+    }
+
+    @Test
+    public void shouldCloseClientWhenHandshakeFails() throws Exception {
+        // given
+        DockerClientRegistry testee = new DockerClientRegistry(clientFactory, 60);
+        when(client.info()).thenThrow(new DockerException("connection refused"));
+        // when
+        try {
+            testee.acquire();
+            fail("handshake failure expected");
+        } catch (DockerException e) {
+            // expected
+        }
+        // then
+        verify(client).close();
+        assertEquals(0, testee.references(client));
+    }
+
+    @Test
+    public void shouldCloseClientWhenIdle() throws Exception {
+        // given
+        DockerClientRegistry testee = new DockerClientRegistry(clientFactory, 0);
+        DockerClient acquired = testee.acquire();
+        // when
+        testee.release(acquired);
+        // then
+        verify(client, timeout(1000)).close();
+        assertEquals(0, testee.references(client));
+    }
+
+    @Test
+    public void shouldNotCloseClientReacquiredBeforeIdleTimeout() throws Exception {
+        // given
+        DockerClientRegistry testee = new DockerClientRegistry(clientFactory, 1);
+        testee.release(testee.acquire());
+        // when
+        DockerClient reacquired = testee.acquire();
+        Thread.sleep(1500);
+        // then
+        assertSame(client, reacquired);
+        assertEquals(1, testee.references(client));
+        verify(client, never()).close();
+        verify(clientFactory, times(1)).create();
+    }
+
+}
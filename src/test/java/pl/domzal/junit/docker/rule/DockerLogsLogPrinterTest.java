@@ -3,15 +3,14 @@ package pl.domzal.junit.docker.rule;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.io.PrintStream;
-import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
@@ -19,36 +18,54 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.spotify.docker.client.LogMessage;
+import com.spotify.docker.client.LogStream;
+
+import pl.domzal.junit.docker.rule.logs.LogDemuxer;
 import pl.domzal.junit.docker.rule.logs.LogPrinter;
 import pl.domzal.junit.docker.rule.wait.LineListener;
 
 @Category(test.category.Stable.class)
 public class DockerLogsLogPrinterTest {
 
+    private static final LogMessage END = new LogMessage(LogMessage.Stream.STDIN, ByteBuffer.allocate(0));
+
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
-    private PrintWriter containerStdout;
+    private final BlockingQueue<LogMessage> containerStdout = new LinkedBlockingQueue<>();
     private ByteArrayOutputStream logOutputStream;
     LineListener lineListener = mock(LineListener.class);
 
-    LogPrinter testee;
+    LogDemuxer testee;
 
     @Before
-    public void setup() throws IOException {
-        PipedInputStream containerStdoutIs = new PipedInputStream();
-        containerStdout = new PrintWriter(new PipedOutputStream(containerStdoutIs));
+    public void setup() {
+        LogStream logStream = mock(LogStream.class);
+        when(logStream.hasNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return containerStdout.peek() != END;
+            }
+        });
+        when(logStream.next()).thenAnswer(new Answer<LogMessage>() {
+            @Override
+            public LogMessage answer(InvocationOnMock invocation) throws Throwable {
+                return containerStdout.take();
+            }
+        });
         logOutputStream = new ByteArrayOutputStream();
-        testee = new LogPrinter("prefix", containerStdoutIs, new PrintStream(logOutputStream), lineListener);
+        testee = new LogDemuxer(logStream, new LogPrinter("prefix", new PrintStream(logOutputStream)), null, lineListener);
         executor.submit(testee);
     }
 
     @Test
     public void shouldPrintContainerOuputToLog() throws Exception {
-        containerStdout.println("one");
-        containerStdout.println("two");
-        containerStdout.println("three");
-        containerStdout.flush();
+        print("one\n");
+        print("two\n");
+        print("three\n");
 
         new WaitForUnit(TimeUnit.SECONDS, 1, new WaitForUnit.WaitForCondition() {
             @Override
@@ -60,10 +77,9 @@ public class DockerLogsLogPrinterTest {
 
     @Test
     public void shouldPassContainerOutputLinesToLineListener() {
-        containerStdout.println("one");
-        containerStdout.println("two");
-        containerStdout.println("three");
-        containerStdout.flush();
+        print("one\n");
+        print("two\n");
+        print("three\n");
 
         verify(lineListener, timeout(1000).times(3)).nextLine(anyString());
 
@@ -75,23 +91,25 @@ public class DockerLogsLogPrinterTest {
 
     @Test
     public void shouldPassSingleLineOnMultipleLinePartPrints() {
-        containerStdout.print("quite ");
-        containerStdout.flush();
-        containerStdout.print("long ");
-        containerStdout.flush();
-        containerStdout.println("line");
-        containerStdout.flush();
+        print("quite ");
+        print("long ");
+        print("line\n");
 
         verify(lineListener, timeout(1000)).nextLine("quite long line");
     }
 
     @After
     public void teardown() throws InterruptedException {
-        executor.awaitTermination(1, TimeUnit.SECONDS);
+        containerStdout.add(END);
         executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
         System.out.println(logOutput());
     }
 
+    private void print(String text) {
+        containerStdout.add(new LogMessage(LogMessage.Stream.STDOUT, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
     /**
      * Output log collected till now.
      */
@@ -103,4 +121,4 @@ public class DockerLogsLogPrinterTest {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+public class DockerRuleGroupLevelsTest {
+
+    @Test
+    public void shouldPutIndependentNodesInSingleLevel() {
+        List<List<String>> levels = DockerRuleGroup.dependencyLevels(Arrays.asList("db", "cache", "queue"), Collections.<String, List<String>>emptyMap());
+        assertEquals(Collections.singletonList(Arrays.asList("db", "cache", "queue")), levels);
+    }
+
+    @Test
+    public void shouldOrderDependentNodes() {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("web", Arrays.asList("db", "cache"));
+        dependencies.put("proxy", Collections.singletonList("web"));
+        dependencies.put("cache", Collections.singletonList("db"));
+        List<List<String>> levels = DockerRuleGroup.dependencyLevels(Arrays.asList("proxy", "web", "cache", "db", "queue"), dependencies);
+        assertEquals(Arrays.asList(
+                Arrays.asList("db", "queue"),
+                Collections.singletonList("cache"),
+                Collections.singletonList("web"),
+                Collections.singletonList("proxy")), levels);
+    }
+
+    @Test
+    public void shouldIgnoreDependenciesOutsideGroup() {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("web", Collections.singletonList("external"));
+        List<List<String>> levels = DockerRuleGroup.dependencyLevels(Arrays.asList("web", "db"), dependencies);
+        assertEquals(Collections.singletonList(Arrays.asList("web", "db")), levels);
+    }
+
+    @Test(expected = InvalidParameter.class)
+    public void shouldFailOnCircularDependencies() {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("a", Collections.singletonList("b"));
+        dependencies.put("b", Collections.singletonList("a"));
+        DockerRuleGroup.dependencyLevels(Arrays.asList("a", "b"), dependencies);
+    }
+
+}
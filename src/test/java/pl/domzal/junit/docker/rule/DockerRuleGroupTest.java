@@ -0,0 +1,43 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class DockerRuleGroupTest {
+
+    private static DockerRule db = DockerRule.builder()//
+            .imageName("alpine:3.4")//
+            .cmd("sh", "-c", "sleep 30")//
+            .build();
+
+    private static DockerRule cache = DockerRule.builder()//
+            .imageName("alpine:3.4")//
+            .cmd("sh", "-c", "sleep 30")//
+            .build();
+
+    private static DockerRule web = DockerRule.builder()//
+            .imageName("alpine:3.4")//
+            .link(db, "db")//
+            .link(cache, "cache")//
+            .cmd("sh", "-c", "ping -w 1 db; ping -w 1 cache")//
+            .build();
+
+    @ClassRule
+    public static DockerRuleGroup containers = DockerRuleGroup.of(web, db, cache);
+
+    @Test
+    public void shouldStartLinkedContainersFirst() throws Throwable {
+        web.waitForExit();
+        String output = web.getLog();
+        assertThat(output, containsString("PING db"));
+        assertThat(output, containsString("PING cache"));
+        assertTrue(db.getContainerInfo().state().running());
+    }
+
+}
@@ -0,0 +1,32 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class DockerRuleLogCaptureTest {
+
+    @Rule
+    public DockerRule testee = DockerRule.builder()//
+            .imageName("busybox:1.25.1")//
+            .cmd("sh", "-c", "echo one; echo two; sleep 1; echo three; echo four")//
+            .build();
+
+    @Test
+    public void shouldServeLogFromCapture() throws Throwable {
+        testee.waitForLogMessage("two", 10);
+        int marker = testee.getLogLineCount();
+        testee.waitForExit();
+
+        assertEquals("one\ntwo\nthree\nfour\n", testee.getLog());
+        assertEquals("three\nfour\n", testee.getLogSince(marker));
+        assertEquals("four\n", testee.getLogTail(1));
+        assertEquals(Arrays.asList("two", "three"), testee.getLogLines(1, 3));
+    }
+
+}
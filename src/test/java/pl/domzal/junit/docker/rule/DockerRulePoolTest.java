@@ -0,0 +1,48 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import org.junit.ClassRule;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runners.MethodSorters;
+
+@Category(test.category.Stable.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DockerRulePoolTest {
+
+    @ClassRule
+    public static DockerRulePool pool = DockerRulePool.of(DockerRule.builder()//
+                .imageName("busybox:1.25.1")//
+                .cmd("sh", "-c", "echo started; sleep 60")//
+                .waitFor(WaitFor.logMessage("started")), 1)//
+            .resetHook(new DockerRulePool.ResetHook() {
+                @Override
+                public boolean reset(DockerRule container) {
+                    return true;
+                }
+            });
+
+    @Rule
+    public PooledDockerRule container = pool.rule();
+
+    @Test
+    public void test1ShouldProvideStartedContainer() throws Exception {
+        String containerId = container.get().getContainerId();
+        assertTrue(container.get().getDockerClient().inspectContainer(containerId).state().running());
+    }
+
+    @Test
+    public void test2ShouldServeFromPool() throws Exception {
+        // container used in first test was returned to pool
+        assertEquals(2, pool.getHits() + pool.getMisses());
+        // first checkout waited for container being started in background
+        assertEquals(2, pool.getHits());
+        // containers started on misses are not refills
+        assertEquals(1, pool.getRefills());
+        assertTrue(pool.getAvailable() <= 1);
+    }
+
+}
@@ -0,0 +1,66 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+
+@Category(test.category.Stable.class)
+public class DockerRuleReuseContainerTest {
+
+    private final String testRunId = UUID.randomUUID().toString();
+
+    @Test
+    public void shouldReuseContainerWithSameConfig() throws Throwable {
+        DockerRule first = reusableRule(testRunId);
+        DockerRule second = reusableRule(testRunId);
+        first.before();
+        String firstContainerId = first.getContainerId();
+        try {
+            first.after();
+            second.before();
+            second.after();
+            assertEquals(firstContainerId, second.getContainerId());
+            assertTrue(isRunning(second.getDockerClient(), firstContainerId));
+        } finally {
+            cleanup(first.getDockerClient(), firstContainerId);
+        }
+    }
+
+    @Test
+    public void shouldNotReuseContainerWithDifferentConfig() throws Throwable {
+        DockerRule first = reusableRule(testRunId);
+        DockerRule second = reusableRule(testRunId + "-other");
+        first.before();
+        second.before();
+        try {
+            assertNotEquals(first.getContainerId(), second.getContainerId());
+        } finally {
+            cleanup(first.getDockerClient(), first.getContainerId());
+            cleanup(second.getDockerClient(), second.getContainerId());
+        }
+    }
+
+    private static DockerRule reusableRule(String testRunId) {
+        return DockerRule.builder()//
+                .imageName("busybox:1.25.1")//
+                .cmd("sh", "-c", "sleep 60")//
+                .addLabel("test-run", testRunId)//
+                .reuseContainer(60)//
+                .build();
+    }
+
+    private static boolean isRunning(DockerClient dockerClient, String containerId) throws DockerException, InterruptedException {
+        return dockerClient.inspectContainer(containerId).state().running();
+    }
+
+    private static void cleanup(DockerClient dockerClient, String containerId) throws DockerException, InterruptedException {
+        dockerClient.removeContainer(containerId, DockerClient.RemoveContainerParam.forceKill());
+    }
+
+}
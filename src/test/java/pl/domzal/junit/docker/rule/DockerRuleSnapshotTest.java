@@ -0,0 +1,47 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class DockerRuleSnapshotTest {
+
+    private final String testRunId = UUID.randomUUID().toString();
+
+    @Test
+    public void shouldStartFromSnapshotAfterFirstStart() throws Throwable {
+        DockerRule first = snapshotRule();
+        first.before();
+        try {
+            assertThat(first.getLog(), containsString("initialized"));
+        } finally {
+            first.after();
+        }
+        DockerRule second = snapshotRule();
+        second.before();
+        try {
+            assertThat(second.getLog(), containsString("started"));
+            assertThat(second.getLog(), not(containsString("initialized")));
+        } finally {
+            second.after();
+            // remove snapshot
+            second.getDockerClient().removeImage(second.getContainerInfo().image());
+        }
+    }
+
+    private DockerRule snapshotRule() {
+        return DockerRule.builder()//
+                .imageName("busybox:1.25.1")//
+                .env("TEST_RUN", testRunId)//
+                .cmd("sh", "-c", "if [ ! -f /initialized ]; then sleep 2; touch /initialized; echo initialized; fi; echo started; sleep 60")//
+                .waitFor(WaitFor.logMessage("started"))//
+                .snapshotAfterReady()//
+                .build();
+    }
+
+}
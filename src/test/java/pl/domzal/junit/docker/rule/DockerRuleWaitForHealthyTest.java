@@ -0,0 +1,45 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.ex.ContainerUnhealthyException;
+
+@Category(test.category.Stable.class)
+public class DockerRuleWaitForHealthyTest {
+
+    @Test
+    public void shouldWaitForHealthyStatus() throws Throwable {
+        DockerRule testee = DockerRule.builder()//
+                .imageName("busybox:1.25.1")//
+                .cmd("sh", "-c", "sleep 2; touch /tmp/ready; sleep 30")//
+                .healthCheck("test -f /tmp/ready", 1, 1, 10)//
+                .waitFor(WaitFor.healthy())//
+                .build();
+        try {
+            testee.before();
+            assertEquals("healthy", testee.getDockerClient().inspectContainer(testee.getContainerId()).state().health().status());
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test(expected = ContainerUnhealthyException.class)
+    public void shouldFailOnUnhealthyStatus() throws Throwable {
+        DockerRule testee = DockerRule.builder()//
+                .imageName("busybox:1.25.1")//
+                .cmd("sh", "-c", "sleep 30")//
+                .healthCheck("false", 1, 1, 1)//
+                .waitFor(WaitFor.healthy())//
+                .waitForTimeout(30)//
+                .build();
+        try {
+            testee.before();
+        } finally {
+            testee.after();
+        }
+    }
+
+}
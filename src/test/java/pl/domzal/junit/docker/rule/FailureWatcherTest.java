@@ -0,0 +1,73 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.AssumptionViolatedException;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+public class FailureWatcherTest {
+
+    private DockerRule container1 = mock(DockerRule.class);
+    private DockerRule container2 = mock(DockerRule.class);
+
+    private FailureWatcher testee = new FailureWatcher(Arrays.asList(container1, container2));
+
+    private Description test = Description.createTestDescription(FailureWatcherTest.class, "someTest");
+
+    @Test
+    public void shouldMarkAllContainersOnTestFailure() throws Throwable {
+        // when
+        Throwable thrown = evaluate(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                throw new AssertionError("test failed");
+            }
+        });
+        // then
+        assertTrue(thrown instanceof AssertionError);
+        verify(container1).markTestFailed();
+        verify(container2).markTestFailed();
+    }
+
+    @Test
+    public void shouldNotMarkContainersOnSuccess() throws Throwable {
+        // when
+        Throwable thrown = evaluate(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+            }
+        });
+        // then
+        assertNull(thrown);
+        verify(container1, never()).markTestFailed();
+    }
+
+    @Test
+    public void shouldNotMarkContainersOnAssumptionFailure() throws Throwable {
+        // when
+        Throwable thrown = evaluate(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                throw new AssumptionViolatedException("skipped");
+            }
+        });
+        // then
+        assertTrue(thrown instanceof AssumptionViolatedException);
+        verify(container1, never()).markTestFailed();
+    }
+
+    private Throwable evaluate(Statement test) {
+        try {
+            testee.apply(test, this.test).evaluate();
+            return null;
+        } catch (Throwable e) {
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.ImageNotFoundException;
+
+public class ImageAvailabilityCacheTest {
+
+    private static final String IMAGE = "busybox:1.25.1";
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+
+    private ImageAvailabilityCache testee = new ImageAvailabilityCache();
+
+    @Before
+    public void setup() {
+        when(dockerClient.getHost()).thenReturn("localhost");
+    }
+
+    @Test
+    public void shouldInspectImageOnlyOnce() throws Exception {
+        assertTrue(testee.isAvailable(dockerClient, IMAGE));
+        assertTrue(testee.isAvailable(dockerClient, IMAGE));
+        verify(dockerClient, times(1)).inspectImage(IMAGE);
+    }
+
+    @Test
+    public void shouldReportMissingImage() throws Exception {
+        when(dockerClient.inspectImage(IMAGE)).thenThrow(new ImageNotFoundException(IMAGE));
+        assertFalse(testee.isAvailable(dockerClient, IMAGE));
+    }
+
+    @Test
+    public void shouldReportImageAvailableAfterPull() throws Exception {
+        when(dockerClient.inspectImage(IMAGE)).thenThrow(new ImageNotFoundException(IMAGE));
+        assertFalse(testee.isAvailable(dockerClient, IMAGE));
+        testee.markAvailable(dockerClient, IMAGE);
+        assertTrue(testee.isAvailable(dockerClient, IMAGE));
+        verify(dockerClient, times(1)).inspectImage(IMAGE);
+    }
+
+    @Test
+    public void shouldInspectAgainWhenInvalidated() throws Exception {
+        testee.isAvailable(dockerClient, IMAGE);
+        testee.invalidate(dockerClient, IMAGE);
+        testee.isAvailable(dockerClient, IMAGE);
+        verify(dockerClient, times(2)).inspectImage(IMAGE);
+    }
+
+}
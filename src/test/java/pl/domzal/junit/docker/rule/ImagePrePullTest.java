@@ -0,0 +1,49 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class ImagePrePullTest {
+
+    @Test
+    public void shouldCollectImagesFromSuiteClasses() {
+        // given
+        Description suite = Description.createSuiteDescription("suite");
+        Description first = Description.createSuiteDescription(FirstTestCase.class);
+        first.addChild(Description.createTestDescription(FirstTestCase.class, "test"));
+        suite.addChild(first);
+        suite.addChild(Description.createSuiteDescription(SecondTestCase.class));
+        suite.addChild(Description.createSuiteDescription(NoImagesTestCase.class));
+        // when
+        Set<String> images = ImagePrePull.collectImages(suite);
+        // then
+        assertEquals(Arrays.asList("busybox:1.25.1", "nginx:latest", "alpine:3.4"), Arrays.asList(images.toArray()));
+    }
+
+    @Test
+    public void shouldCollectImagesFromSuperclass() {
+        Set<String> images = ImagePrePull.collectImages(Description.createSuiteDescription(InheritedTestCase.class));
+        assertEquals(2, images.size());
+        assertTrue(images.contains("nginx:latest"));
+    }
+
+    @DockerImages({"busybox:1.25.1", "nginx"})
+    public static class FirstTestCase {
+    }
+
+    @DockerImages({"alpine:3.4", "busybox:1.25.1"})
+    public static class SecondTestCase {
+    }
+
+    public static class NoImagesTestCase {
+    }
+
+    public static class InheritedTestCase extends FirstTestCase {
+    }
+
+}
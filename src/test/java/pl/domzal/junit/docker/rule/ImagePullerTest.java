@@ -0,0 +1,68 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.ProgressHandler;
+import com.spotify.docker.client.exceptions.ImageNotFoundException;
+
+public class ImagePullerTest {
+
+    private static final String IMAGE = "busybox:1.25.1";
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+
+    private ImagePuller testee = new ImagePuller(2);
+
+    @Before
+    public void setup() {
+        when(dockerClient.getHost()).thenReturn("localhost");
+    }
+
+    @Test
+    public void shouldJoinPullInProgress() throws Exception {
+        // given
+        final CountDownLatch pullRelease = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                pullRelease.await();
+                return null;
+            }
+        }).when(dockerClient).pull(eq(IMAGE), any(ProgressHandler.class));
+        // when
+        Future<Void> first = testee.pullAsync(dockerClient, IMAGE);
+        Future<Void> second = testee.pullAsync(dockerClient, IMAGE);
+        pullRelease.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        // then
+        assertSame(first, second);
+        verify(dockerClient, times(1)).pull(eq(IMAGE), any(ProgressHandler.class));
+    }
+
+    @Test
+    public void shouldPullAgainAfterPreviousPullCompleted() throws Exception {
+        testee.pull(dockerClient, IMAGE);
+        testee.pull(dockerClient, IMAGE);
+        verify(dockerClient, times(2)).pull(eq(IMAGE), any(ProgressHandler.class));
+    }
+
+    @Test(expected = ImageNotFoundException.class)
+    public void shouldPassPullFailure() throws Exception {
+        doThrow(new ImageNotFoundException(IMAGE)).when(dockerClient).pull(eq(IMAGE), any(ProgressHandler.class));
+        testee.pull(dockerClient, IMAGE);
+    }
+
+}
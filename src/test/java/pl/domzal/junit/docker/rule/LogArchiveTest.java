@@ -0,0 +1,82 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteWholeLog() throws IOException {
+        LogArchive testee = new LogArchive(1024 * 1024);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            testee.nextLine("line " + i);
+            expected.append("line ").append(i).append('\n');
+        }
+        File file = new File(folder.getRoot(), "some/dir/container.log.gz");
+
+        testee.writeTo(file);
+
+        assertEquals(0, testee.droppedLines());
+        assertEquals(expected.toString(), gunzip(file));
+    }
+
+    @Test
+    public void shouldDropOldestChunks() throws IOException {
+        LogArchive testee = new LogArchive(1);
+        for (int i = 0; i < 50000; i++) {
+            testee.nextLine("line " + i);
+        }
+        File file = folder.newFile("container.log.gz");
+
+        testee.writeTo(file);
+
+        assertTrue(testee.droppedLines() > 0);
+        String log = gunzip(file);
+        assertThat(log, startsWith(String.format("[%d older log lines dropped]\n", testee.droppedLines())));
+        assertThat(log, endsWith("line 49999\n"));
+    }
+
+    @Test
+    public void shouldWriteEmptyLogAfterClear() throws IOException {
+        LogArchive testee = new LogArchive(1024);
+        testee.nextLine("one");
+        testee.clear();
+        File file = folder.newFile("container.log.gz");
+
+        testee.writeTo(file);
+
+        assertEquals(0, file.length());
+    }
+
+    @Test
+    public void shouldBuildArchiveFileName() {
+        File file = LogArchive.archiveFile("com.example.SomeTest", "db:1");
+
+        assertEquals("db_1.log.gz", file.getName());
+        assertEquals("com.example.SomeTest", file.getParentFile().getName());
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LogReadersTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void teardown() {
+        release.countDown();
+    }
+
+    @Test
+    public void shouldStartThreadForEveryReaderWhenNotLimited() throws Exception {
+        // given
+        LogReaders testee = new LogReaders(0);
+        CountDownLatch started = new CountDownLatch(3);
+        // when
+        for (int i = 0; i < 3; i++) {
+            testee.submit(blockingReader(started));
+        }
+        // then
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(3, testee.threadCount());
+        assertEquals(0, testee.queueDepth());
+    }
+
+    @Test
+    public void shouldQueueReadersAboveLimit() throws Exception {
+        // given
+        LogReaders testee = new LogReaders(2);
+        CountDownLatch started = new CountDownLatch(2);
+        // when
+        testee.submit(blockingReader(started));
+        testee.submit(blockingReader(started));
+        Future<Void> queued = testee.submit(blockingReader(new CountDownLatch(1)));
+        // then
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(2, testee.threadCount());
+        assertEquals(1, testee.queueDepth());
+        assertTrue(testee.toString().contains("2 active, 1 queued"));
+        release.countDown();
+        queued.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldNotQueueAwaitedReaderAboveLimit() throws Exception {
+        // given
+        LogReaders testee = new LogReaders(1);
+        CountDownLatch started = new CountDownLatch(1);
+        testee.submit(blockingReader(started));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        // when
+        CountDownLatch awaitedStarted = new CountDownLatch(1);
+        testee.submitAwaited(blockingReader(awaitedStarted));
+        // then
+        assertTrue(awaitedStarted.await(1, TimeUnit.SECONDS));
+        assertEquals(1, testee.threadCount());
+        assertEquals(0, testee.queueDepth());
+        assertEquals(1, testee.overflowCount());
+    }
+
+    @Test
+    public void shouldReadAwaitedReaderInPoolBelowLimit() throws Exception {
+        // given
+        LogReaders testee = new LogReaders(2);
+        CountDownLatch started = new CountDownLatch(2);
+        // when
+        testee.submit(blockingReader(started));
+        testee.submitAwaited(blockingReader(started));
+        // then
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(2, testee.threadCount());
+        assertEquals(0, testee.overflowCount());
+    }
+
+    @Test
+    public void shouldNotCountCancelledQueuedReader() throws Exception {
+        // given
+        LogReaders testee = new LogReaders(1);
+        CountDownLatch started = new CountDownLatch(1);
+        testee.submit(blockingReader(started));
+        Future<Void> queued = testee.submit(blockingReader(new CountDownLatch(1)));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        // when
+        queued.cancel(false);
+        release.countDown();
+        // then - pool is free again, so awaited reader is read in pool
+        CountDownLatch awaitedStarted = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (testee.activeCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        testee.submitAwaited(blockingReader(awaitedStarted));
+        assertTrue(awaitedStarted.await(1, TimeUnit.SECONDS));
+        assertEquals(0, testee.overflowCount());
+    }
+
+    private Callable<Void> blockingReader(final CountDownLatch started) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        };
+    }
+
+}
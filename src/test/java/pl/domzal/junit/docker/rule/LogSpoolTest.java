@@ -0,0 +1,138 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private LogSpool testee;
+
+    @Before
+    public void setup() throws IOException {
+        file = folder.newFile("container.log");
+        testee = new LogSpool(file);
+    }
+
+    @After
+    public void cleanup() {
+        testee.release(false);
+    }
+
+    @Test
+    public void shouldReturnWholeLog() {
+        testee.nextLine("one");
+        testee.nextLine("");
+        testee.nextLine("za\u017c\u00f3\u0142\u0107");
+
+        assertEquals("one\n\nza\u017c\u00f3\u0142\u0107\n", testee.getLog());
+        assertEquals(3, testee.lineCount());
+    }
+
+    @Test
+    public void shouldReturnLogRange() {
+        for (int i = 0; i < 1000; i++) {
+            testee.nextLine("line" + i);
+        }
+
+        assertEquals("line998\nline999\n", testee.getLog(998, 1000));
+        assertEquals("line0\n", testee.getLog(-5, 1));
+        assertEquals("", testee.getLog(1000, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("line63", "line64", "line65"), testee.getLines(63, 66));
+        assertEquals(Collections.singletonList("line999"), testee.getLines(999, 2000));
+    }
+
+    @Test
+    public void shouldReadLinesLongerThanWriteBuffer() {
+        String longLine = StringUtils.repeat('x', 100000);
+        testee.nextLine("first");
+        testee.nextLine(longLine);
+        testee.nextLine("last");
+
+        assertEquals(Arrays.asList("first", longLine, "last"), testee.getLines(0, 3));
+        assertEquals("last\n", testee.getLog(2, 3));
+    }
+
+    @Test
+    public void shouldFindText() {
+        for (int i = 0; i < 10000; i++) {
+            testee.nextLine("line" + i);
+        }
+
+        assertTrue(testee.contains("line9999"));
+        assertTrue(testee.contains("line1\nline2"));
+        assertFalse(testee.contains("line10000"));
+    }
+
+    @Test
+    public void shouldDeleteSpoolOnRelease() {
+        testee.nextLine("one");
+        testee.release(false);
+
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void shouldKeepSpoolOnRelease() throws Exception {
+        testee.nextLine("one");
+        testee.release(true);
+
+        assertTrue(file.exists());
+        assertEquals(4, file.length());
+    }
+
+    @Test
+    public void shouldKeepWholeSmallLogReadableAfterRelease() {
+        testee.nextLine("one");
+        testee.nextLine("two");
+        testee.release(false);
+
+        assertEquals("one\ntwo\n", testee.getLog());
+        assertEquals(Arrays.asList("one", "two"), testee.getLines(0, 2));
+        assertTrue(testee.contains("two"));
+        assertEquals(2, testee.lineCount());
+    }
+
+    @Test
+    public void shouldKeepLogTailReadableAfterRelease() throws IOException {
+        testee.release(false);
+        testee = new LogSpool(folder.newFile("tail.log"), 100);
+        for (int i = 0; i < 1000; i++) {
+            testee.nextLine("line" + i);
+        }
+        testee.release(false);
+
+        String log = testee.getLog();
+        assertTrue(log.length() <= 100);
+        assertTrue(log.startsWith("line9"));
+        assertTrue(log.endsWith("line998\nline999\n"));
+        assertEquals("line999\n", testee.getLog(999, 1000));
+        assertEquals(Collections.singletonList("line998"), testee.getLines(998, 999));
+        assertTrue(testee.getLines(0, 10).isEmpty());
+        assertFalse(testee.contains("line0\n"));
+        assertEquals(1000, testee.lineCount());
+    }
+
+    @Test
+    public void shouldReturnEmptyLogWhenNothingCaptured() {
+        assertEquals("", testee.getLog());
+        assertEquals("", testee.getLog(0, 10));
+        assertTrue(testee.getLines(0, 10).isEmpty());
+        assertFalse(testee.contains("x"));
+    }
+
+}
@@ -0,0 +1,44 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class MemoryLogCaptureTest {
+
+    private MemoryLogCapture testee = new MemoryLogCapture();
+
+    @Test
+    public void shouldReturnWholeLog() {
+        testee.nextLine("one");
+        testee.nextLine("");
+        testee.nextLine("three");
+
+        assertEquals("one\n\nthree\n", testee.getLog());
+        assertEquals(3, testee.lineCount());
+    }
+
+    @Test
+    public void shouldReturnLogRange() {
+        for (int i = 0; i < 1000; i++) {
+            testee.nextLine("line" + i);
+        }
+
+        assertEquals("line998\nline999\n", testee.getLog(998, 1000));
+        assertEquals("line0\n", testee.getLog(-5, 1));
+        assertEquals("", testee.getLog(1000, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("line10", "line11"), testee.getLines(10, 12));
+        assertEquals(Collections.singletonList("line999"), testee.getLines(999, 2000));
+    }
+
+    @Test
+    public void shouldReturnEmptyLogWhenNothingCaptured() {
+        assertEquals("", testee.getLog());
+        assertEquals("", testee.getLog(0, 10));
+        assertTrue(testee.getLines(0, 10).isEmpty());
+    }
+
+}
@@ -0,0 +1,130 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Matchers;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.DockerClient.ListContainersParam;
+import com.spotify.docker.client.DockerClient.RemoveContainerParam;
+import com.spotify.docker.client.messages.Container;
+
+public class ReusableContainersTest {
+
+    private static final int TTL_SECONDS = 60;
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+
+    private String containerId = UUID.randomUUID().toString();
+
+    @After
+    public void cleanup() {
+        File markersDir = new File(System.getProperty("java.io.tmpdir"), ReusableContainers.USE_MARKERS_DIR_NAME);
+        new File(markersDir, containerId).delete();
+        new File(markersDir, containerId + ".ready").delete();
+    }
+
+    @Test
+    public void shouldFindReadyContainer() throws Exception {
+        // given
+        listed(container("running", 0));
+        ReusableContainers.markReady(containerId);
+        // when
+        String found = ReusableContainers.findRunning(dockerClient, "hash");
+        // then
+        assertEquals(containerId, found);
+    }
+
+    @Test
+    public void shouldNotFindContainerNotReady() throws Exception {
+        // given - still starting or failed to start
+        listed(container("running", 0));
+        // when
+        String found = ReusableContainers.findRunning(dockerClient, "hash");
+        // then
+        assertNull(found);
+    }
+
+    @Test
+    public void shouldRemoveContainerNotReady() throws Exception {
+        // given
+        ReusableContainers.markInUse(containerId);
+        // when
+        ReusableContainers.removeNotReady(dockerClient, containerId);
+        // then
+        verify(dockerClient).removeContainer(containerId, RemoveContainerParam.forceKill(), RemoveContainerParam.removeVolumes());
+        listed(container("running", 0));
+        assertNull(ReusableContainers.findRunning(dockerClient, "hash"));
+    }
+
+    @Test
+    public void shouldRemoveExpiredStoppedContainer() throws Exception {
+        // given
+        listed(container("exited", TTL_SECONDS * 2));
+        // when
+        ReusableContainers.removeExpired(dockerClient);
+        // then
+        verify(dockerClient).removeContainer(containerId, RemoveContainerParam.removeVolumes());
+    }
+
+    @Test
+    public void shouldRemoveExpiredIdleRunningContainer() throws Exception {
+        // given
+        listed(container("running", TTL_SECONDS * 2));
+        // when
+        ReusableContainers.removeExpired(dockerClient);
+        // then
+        verify(dockerClient).removeContainer(containerId, RemoveContainerParam.forceKill(), RemoveContainerParam.removeVolumes());
+    }
+
+    @Test
+    public void shouldNotRemoveContainerInUse() throws Exception {
+        // given
+        listed(container("running", TTL_SECONDS * 2));
+        ReusableContainers.markInUse(containerId);
+        try {
+            // when
+            ReusableContainers.removeExpired(dockerClient);
+            // then
+            verify(dockerClient, never()).removeContainer(anyString(), Matchers.<RemoveContainerParam>anyVararg());
+        } finally {
+            ReusableContainers.markUnused(containerId);
+        }
+    }
+
+    @Test
+    public void shouldCountTimeToLiveFromLastUse() throws Exception {
+        // given - created long ago, but used recently
+        listed(container("running", TTL_SECONDS * 2));
+        ReusableContainers.markInUse(containerId);
+        ReusableContainers.markUnused(containerId);
+        // when
+        ReusableContainers.removeExpired(dockerClient);
+        // then
+        verify(dockerClient, never()).removeContainer(anyString(), Matchers.<RemoveContainerParam>anyVararg());
+    }
+
+    private void listed(Container container) throws Exception {
+        when(dockerClient.listContainers(Matchers.<ListContainersParam>anyVararg())).thenReturn(Collections.singletonList(container));
+    }
+
+    private Container container(String state, int createdSecondsAgo) {
+        Container container = mock(Container.class);
+        when(container.id()).thenReturn(containerId);
+        when(container.state()).thenReturn(state);
+        when(container.created()).thenReturn(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - createdSecondsAgo);
+        when(container.labels()).thenReturn(ImmutableMap.of(ReusableContainers.TTL_LABEL, Integer.toString(TTL_SECONDS)));
+        return container;
+    }
+
+}
@@ -1,7 +1,11 @@
 package pl.domzal.junit.docker.rule;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -12,10 +16,13 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import junit.framework.AssertionFailedError;
+import pl.domzal.junit.docker.rule.wait.NotifyingStartConditionCheck;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
 @Category(test.category.Stable.class)
@@ -79,6 +86,179 @@ public class WaitForContainerTest {
         WaitForContainer.waitForCondition(condition, WAIT_LOG_TIMEOUT_SEC, "test container");
     }
 
+    @Test(timeout = 10000)
+    public void shouldStopRightAfterNotification() throws Exception {
+        final NotifiedCondition condition = new NotifiedCondition();
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                condition.met();
+            }
+        }.start();
+        long start = System.currentTimeMillis();
+
+        WaitForContainer.waitForCondition(condition, WAIT_LOG_TIMEOUT_SEC, "test container");
+
+        // not delayed till next (1s) tick
+        assertTrue(System.currentTimeMillis() - start < 900);
+    }
+
+    @Test(timeout = 10000, expected = TimeoutException.class)
+    public void shouldTimeoutWhenNotifiedConditionNotMet() throws Exception {
+        WaitForContainer.waitForCondition(new NotifiedCondition(), 1, "test container");
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWaitForAllConditionsConcurrently() throws Exception {
+        final NotifiedCondition first = new NotifiedCondition();
+        final NotifiedCondition second = new NotifiedCondition();
+        StartConditionCheck pulled = mock(StartConditionCheck.class);
+        when(pulled.check()).thenReturn(true);
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                second.met();
+                first.met();
+            }
+        }.start();
+        long start = System.currentTimeMillis();
+
+        WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(first, second, pulled), WAIT_LOG_TIMEOUT_SEC, "test container");
+
+        assertTrue(System.currentTimeMillis() - start < 900);
+        verify(pulled).after();
+    }
+
+    @Test(timeout = 10000, expected = TimeoutException.class)
+    public void shouldTimeoutWhenAnyOfConditionsNotMet() throws Exception {
+        StartConditionCheck pulled = mock(StartConditionCheck.class);
+        when(pulled.check()).thenReturn(true);
+        WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(pulled, new NotifiedCondition()), 1, "test container");
+    }
+
+    @Test(timeout = 10000, expected = IllegalStateException.class)
+    public void shouldRethrowExceptionOfAnyCondition() throws Exception {
+        StartConditionCheck failing = mock(StartConditionCheck.class);
+        when(failing.check()).thenThrow(new IllegalStateException("kaboom"));
+        WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(new NotifiedCondition(), failing), WAIT_LOG_TIMEOUT_SEC, "test container");
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotDelayWaitsWithBlockedChecksOfOtherWaits() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService blockedWaits = Executors.newFixedThreadPool(6);
+        try {
+            for (int i = 0; i < 6; i++) {
+                final StartConditionCheck blocking = mock(StartConditionCheck.class);
+                when(blocking.check()).thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                        release.await();
+                        return true;
+                    }
+                });
+                blockedWaits.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(blocking, new NotifiedCondition()), WAIT_LOG_TIMEOUT_SEC, "blocked container");
+                        return null;
+                    }
+                });
+            }
+            Thread.sleep(200);
+            StartConditionCheck pulled = mock(StartConditionCheck.class);
+            when(pulled.check()).thenReturn(true);
+            long start = System.currentTimeMillis();
+
+            WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(pulled, pulled), WAIT_LOG_TIMEOUT_SEC, "test container");
+
+            assertTrue(System.currentTimeMillis() - start < 900);
+        } finally {
+            release.countDown();
+            blockedWaits.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReleaseConditionOnlyAfterCheckInProgressFinished() throws Exception {
+        final AtomicBoolean checking = new AtomicBoolean(false);
+        final AtomicBoolean releasedWhileChecking = new AtomicBoolean(false);
+        StartConditionCheck slow = new StartConditionCheck() {
+            @Override
+            public boolean check() {
+                checking.set(true);
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                checking.set(false);
+                return false;
+            }
+
+            @Override
+            public String describe() {
+                return "slow condition";
+            }
+
+            @Override
+            public void after() {
+                releasedWhileChecking.set(checking.get());
+            }
+        };
+        try {
+            WaitForContainer.waitForConditions(Arrays.<StartConditionCheck>asList(slow, new NotifiedCondition()), 1, "test container");
+            fail("timeout expected");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        assertFalse(releasedWhileChecking.get());
+    }
+
+    private static class NotifiedCondition implements NotifyingStartConditionCheck {
+
+        private volatile boolean met = false;
+        private volatile Runnable changeListener;
+
+        void met() {
+            met = true;
+            changeListener.run();
+        }
+
+        @Override
+        public void setChangeListener(Runnable changeListener) {
+            this.changeListener = changeListener;
+        }
+
+        @Override
+        public boolean isChangeNotified() {
+            return true;
+        }
+
+        @Override
+        public boolean check() {
+            return met;
+        }
+
+        @Override
+        public String describe() {
+            return "notified condition";
+        }
+
+        @Override
+        public void after() { }
+    }
+
     private void waitForDone() throws TimeoutException, InterruptedException {
         new WaitForUnit(TimeUnit.SECONDS, 5, new WaitForUnit.WaitForCondition() {
             @Override
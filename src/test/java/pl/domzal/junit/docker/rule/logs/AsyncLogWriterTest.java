@@ -0,0 +1,159 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncLogWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private final BlockingOutputStream out = new BlockingOutputStream();
+    private final PrintStream output = new PrintStream(out);
+
+    private AsyncLogWriter testee;
+
+    @After
+    public void cleanup() {
+        out.release();
+        if (testee != null) {
+            testee.close();
+        }
+    }
+
+    @Test
+    public void shouldWriteLinesInOrder() throws Exception {
+        testee = new AsyncLogWriter(100);
+        out.release();
+
+        for (int i = 0; i < 1000; i++) {
+            testee.write(output, "p> ", "line" + i, LogOverflowPolicy.BLOCK, i);
+        }
+
+        assertTrue(testee.awaitWritten(5000));
+        String written = out.toString();
+        assertTrue(written.startsWith("p> line0" + NL + "p> line1" + NL));
+        assertTrue(written.endsWith("p> line999" + NL));
+        assertEquals(0, testee.droppedLines());
+    }
+
+    @Test
+    public void shouldDropOldestLines() throws Exception {
+        testee = new AsyncLogWriter(4);
+        testee.write(output, "", "first", LogOverflowPolicy.BLOCK, 0);
+        out.awaitBlocked();
+
+        for (int i = 0; i < 10; i++) {
+            testee.write(output, "", "line" + i, LogOverflowPolicy.DROP_OLDEST, i);
+        }
+        out.release();
+
+        assertTrue(testee.awaitWritten(5000));
+        assertEquals(6, testee.droppedLines());
+        assertEquals("first" + NL + "[6 container log lines dropped]" + NL + "line6" + NL + "line7" + NL + "line8" + NL + "line9" + NL, out.toString());
+    }
+
+    @Test
+    public void shouldSampleLinesWhenQueueIsHalfFull() throws Exception {
+        testee = new AsyncLogWriter(4);
+        testee.write(output, "", "first", LogOverflowPolicy.BLOCK, 0);
+        out.awaitBlocked();
+
+        for (int i = 0; i <= 10; i++) {
+            testee.write(output, "", "line" + i, LogOverflowPolicy.SAMPLE, i);
+        }
+        out.release();
+
+        assertTrue(testee.awaitWritten(5000));
+        assertEquals(8, testee.droppedLines());
+        assertEquals("first" + NL + "[8 container log lines dropped]" + NL + "line0" + NL + "line1" + NL + "line10" + NL, out.toString());
+    }
+
+    @Test
+    public void shouldNotAwaitLineInterruptedBeforeQueued() throws Exception {
+        testee = new AsyncLogWriter(1);
+        testee.write(output, "", "first", LogOverflowPolicy.BLOCK, 0);
+        out.awaitBlocked();
+        testee.write(output, "", "queued", LogOverflowPolicy.BLOCK, 1);
+        Thread.currentThread().interrupt();
+        try {
+            testee.write(output, "", "interrupted", LogOverflowPolicy.BLOCK, 2);
+            fail("interruption expected");
+        } catch (InterruptedException e) {
+            // expected
+        }
+        out.release();
+
+        assertTrue(testee.awaitWritten(5000));
+        assertEquals("first" + NL + "queued" + NL, out.toString());
+    }
+
+    @Test
+    public void shouldWriteQueuedLinesAndStopWriterThreadOnClose() throws Exception {
+        testee = new AsyncLogWriter(4);
+        out.release();
+        testee.write(output, "", "line", LogOverflowPolicy.BLOCK, 0);
+
+        testee.close();
+
+        assertEquals("line" + NL, out.toString());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (testee.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(testee.isRunning());
+    }
+
+    /**
+     * Output stream blocking writes until released.
+     */
+    private static class BlockingOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            blocked.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            synchronized (content) {
+                content.write(b, off, len);
+            }
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public String toString() {
+            synchronized (content) {
+                return new String(content.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+}
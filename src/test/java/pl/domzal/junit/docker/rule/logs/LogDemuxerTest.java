@@ -0,0 +1,111 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.spotify.docker.client.LogMessage;
+import com.spotify.docker.client.LogStream;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+public class LogDemuxerTest {
+
+    private LineListener combinedLines = mock(LineListener.class);
+    private LineListener stdoutLines = mock(LineListener.class);
+    private LineListener stderrLines = mock(LineListener.class);
+
+    @Test
+    public void shouldDispatchStdout() {
+        // when
+        demux(stdout("one\n"));
+        // then
+        verify(combinedLines).nextLine("one");
+        verify(stdoutLines).nextLine("one");
+        verify(stderrLines, never()).nextLine(anyString());
+    }
+
+    @Test
+    public void shouldDispatchStderr() {
+        // when
+        demux(stderr("one\n"));
+        // then
+        verify(combinedLines).nextLine("one");
+        verify(stderrLines).nextLine("one");
+        verify(stdoutLines, never()).nextLine(anyString());
+    }
+
+    @Test
+    public void shouldAssembleLinesSplitBetweenFrames() {
+        // when
+        demux(stdout("quite "), stderr("err"), stdout("long "), stderr("or\nsec"), stdout("line\nnext\r\n"), stderr("ond"));
+        // then
+        InOrder inOrder = inOrder(combinedLines);
+        inOrder.verify(combinedLines).nextLine("error");
+        inOrder.verify(combinedLines).nextLine("quite long line");
+        inOrder.verify(combinedLines).nextLine("next");
+        verify(stdoutLines).nextLine("quite long line");
+        verify(stdoutLines).nextLine("next");
+        verify(stderrLines).nextLine("error");
+        verify(stderrLines).nextLine("second");
+    }
+
+    @Test
+    public void shouldSplitMultipleLinesInSingleFrame() {
+        // when
+        demux(stdout("one\ntwo\n\nthree\n"));
+        // then
+        InOrder inOrder = inOrder(stdoutLines);
+        inOrder.verify(stdoutLines).nextLine("one");
+        inOrder.verify(stdoutLines).nextLine("two");
+        inOrder.verify(stdoutLines).nextLine("");
+        inOrder.verify(stdoutLines).nextLine("three");
+    }
+
+    @Test
+    public void shouldAcceptMissingSinks() {
+        LogDemuxer testee = new LogDemuxer(logStream(stdout("one\n"), stderr("two\n")), null, null, combinedLines);
+        testee.run();
+        verify(combinedLines).nextLine("one");
+        verify(combinedLines).nextLine("two");
+    }
+
+    private void demux(LogMessage... messages) {
+        new LogDemuxer(logStream(messages), stdoutLines, stderrLines, combinedLines).run();
+    }
+
+    private static LogStream logStream(LogMessage... messages) {
+        final Iterator<LogMessage> iterator = Arrays.asList(messages).iterator();
+        LogStream logStream = mock(LogStream.class);
+        when(logStream.hasNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return iterator.hasNext();
+            }
+        });
+        when(logStream.next()).thenAnswer(new Answer<LogMessage>() {
+            @Override
+            public LogMessage answer(InvocationOnMock invocation) throws Throwable {
+                return iterator.next();
+            }
+        });
+        return logStream;
+    }
+
+    private static LogMessage stdout(String content) {
+        return new LogMessage(LogMessage.Stream.STDOUT, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static LogMessage stderr(String content) {
+        return new LogMessage(LogMessage.Stream.STDERR, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
@@ -0,0 +1,50 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class BackoffPollStrategyTest {
+
+    @Test
+    public void shouldCheckFirstTimeImmediately() {
+        assertEquals(0, new BackoffPollStrategy(10, 2, 1000, 0).delayMs(0));
+    }
+
+    @Test
+    public void shouldGrowDelayUpToLimit() {
+        BackoffPollStrategy testee = new BackoffPollStrategy(10, 2, 100, 0);
+
+        assertEquals(10, testee.delayMs(1));
+        assertEquals(20, testee.delayMs(2));
+        assertEquals(40, testee.delayMs(3));
+        assertEquals(80, testee.delayMs(4));
+        assertEquals(100, testee.delayMs(5));
+        assertEquals(100, testee.delayMs(1000));
+    }
+
+    @Test
+    public void shouldKeepJitterWithinBounds() {
+        BackoffPollStrategy testee = new BackoffPollStrategy(100, 1, 100, 0.2);
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = testee.delayMs(1);
+            assertTrue("delay " + delay + " out of bounds", delay >= 80 && delay <= 120);
+        }
+    }
+
+    @Test
+    public void shouldUseConstantDelayWhenFixed() {
+        BackoffPollStrategy testee = BackoffPollStrategy.fixed(50);
+
+        assertEquals(0, testee.delayMs(0));
+        assertEquals(50, testee.delayMs(1));
+        assertEquals(50, testee.delayMs(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMaxDelayShorterThanFirst() {
+        new BackoffPollStrategy(100, 2, 10, 0);
+    }
+
+}
@@ -50,4 +50,32 @@ public class HttpPingCheckerTest extends HttpServer {
         assertFalse("should fail on error code 500", testee.check());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldReuseConnectionBetweenChecks() throws Exception {
+        HttpPingClient client = new HttpPingClient(2);
+        try {
+            HttpPingChecker testee = new HttpPingChecker(getHttpAddress(), "GET", "200", client);
+            assertTrue(testee.check());
+            assertTrue(testee.check());
+            assertEquals(2, client.probeCount());
+            assertEquals(0, client.failedProbeCount());
+            assertEquals(1, client.openConnections());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void shouldCountFailedProbes() throws Exception {
+        HttpPingClient client = new HttpPingClient(2);
+        try {
+            HttpPingChecker testee = new HttpPingChecker(String.format("http://%s:%d/", getServerAddress(), getPort() + 1), null, null, client);
+            assertFalse(testee.check());
+            assertEquals(1, client.probeCount());
+            assertEquals(1, client.failedProbeCount());
+        } finally {
+            client.close();
+        }
+    }
+
+}
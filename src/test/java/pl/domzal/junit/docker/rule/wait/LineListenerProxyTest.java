@@ -1,9 +1,12 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -72,4 +75,66 @@ public class LineListenerProxyTest {
         verify(l2).nextLine(eq("four"));
         verify(l2).nextLine(eq("five"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotProxyToLateListenersOutsideHistoryCharLimit() {
+        // given
+        LineListenerProxy testee = new LineListenerProxy(10, 8);
+        // when
+        testee.nextLine("one");
+        testee.nextLine("two");
+        testee.nextLine("three");
+        LineListener l1 = mock(LineListener.class);
+        testee.add(l1);
+        // then
+        verify(l1, never()).nextLine(eq("one"));
+        verify(l1).nextLine(eq("two"));
+        verify(l1).nextLine(eq("three"));
+    }
+
+    @Test
+    public void shouldKeepLastLineOverHistoryCharLimit() {
+        LineListenerProxy testee = new LineListenerProxy(10, 2);
+        testee.nextLine("one");
+        testee.nextLine("three");
+        LineListener l1 = mock(LineListener.class);
+        testee.add(l1);
+        verify(l1, never()).nextLine(eq("one"));
+        verify(l1).nextLine(eq("three"));
+    }
+
+    @Test
+    public void shouldPassLinesProxiedDuringReplayInOrder() {
+        // given
+        final LineListenerProxy testee = new LineListenerProxy();
+        testee.nextLine("one");
+        final List<String> received = new ArrayList<>();
+        LineListener slowListener = new LineListener() {
+            @Override
+            public void nextLine(String line) {
+                if ("one".equals(line)) {
+                    // line proxied (by another thread) while history is replayed
+                    testee.nextLine("two");
+                }
+                received.add(line);
+            }
+        };
+        // when
+        testee.add(slowListener);
+        testee.nextLine("three");
+        // then
+        assertEquals(Arrays.asList("one", "two", "three"), received);
+    }
+
+    @Test
+    public void shouldNotProxyToRemovedListener() {
+        LineListenerProxy testee = new LineListenerProxy();
+        LineListener l1 = mock(LineListener.class);
+        testee.add(l1);
+        testee.nextLine("one");
+        testee.remove(l1);
+        testee.nextLine("two");
+        verify(l1).nextLine(eq("one"));
+        verify(l1, never()).nextLine(eq("two"));
+    }
+}
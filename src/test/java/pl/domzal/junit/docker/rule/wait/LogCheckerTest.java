@@ -0,0 +1,47 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class LogCheckerTest {
+
+    @Test
+    public void shouldDetectMessageInLine() {
+        LogChecker testee = new LogChecker("started");
+
+        assertFalse(testee.check());
+        testee.nextLine("starting");
+        assertFalse(testee.check());
+        testee.nextLine("server started in 2s");
+        assertTrue(testee.check());
+        testee.nextLine("next");
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldNotifyOnceWhenFound() {
+        Runnable changeListener = mock(Runnable.class);
+        LogChecker testee = new LogChecker("started");
+        testee.setChangeListener(changeListener);
+
+        testee.nextLine("starting");
+        verify(changeListener, never()).run();
+        testee.nextLine("started");
+        testee.nextLine("started again");
+        verify(changeListener, times(1)).run();
+    }
+
+    @Test
+    public void shouldDetectMessageInReplayedHistory() {
+        LineListenerProxy proxy = new LineListenerProxy();
+        proxy.nextLine("server started");
+        LogChecker testee = new LogChecker("started");
+
+        proxy.add(testee);
+
+        assertTrue(testee.check());
+    }
+
+}
@@ -0,0 +1,103 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LogLiteralsMatcherTest {
+
+    @Test
+    public void shouldFindOverlappingPatterns() {
+        RecordingListener listener = new RecordingListener("he", "she", "his", "hers");
+        LogLiteralsMatcher testee = new LogLiteralsMatcher(Collections.<LogLiteralsListener>singletonList(listener));
+
+        testee.nextLine("ushers");
+
+        assertEquals(Arrays.asList("ushers"), listener.lines);
+        assertEquals(bits(0, 1, 3), listener.found.get(0));
+    }
+
+    @Test
+    public void shouldPassOnlyLinesWithPatterns() {
+        RecordingListener listener = new RecordingListener("started");
+        LogLiteralsMatcher testee = new LogLiteralsMatcher(Collections.<LogLiteralsListener>singletonList(listener));
+
+        testee.nextLine("starting");
+        testee.nextLine("");
+
+        assertTrue(listener.lines.isEmpty());
+    }
+
+    @Test
+    public void shouldMapSharedPatternsToEveryListener() {
+        RecordingListener first = new RecordingListener("ready", "port 8080");
+        RecordingListener second = new RecordingListener("port 8080");
+        LogLiteralsMatcher testee = new LogLiteralsMatcher(Arrays.<LogLiteralsListener>asList(first, second));
+
+        testee.nextLine("listening on port 8080");
+
+        assertEquals(bits(1), first.found.get(0));
+        assertEquals(bits(0), second.found.get(0));
+    }
+
+    @Test
+    public void shouldDetectSequenceAndMessage() {
+        LogSequenceChecker sequence = new LogSequenceChecker(Arrays.asList("one", "three"));
+        LogChecker message = new LogChecker("two");
+        LogLiteralsMatcher testee = new LogLiteralsMatcher(Arrays.<LogLiteralsListener>asList(sequence, message));
+
+        testee.nextLine("one");
+        testee.nextLine("three - two");
+        assertTrue(sequence.check());
+        assertTrue(message.check());
+    }
+
+    @Test
+    public void shouldNotSkipSequenceElements() {
+        LogSequenceChecker sequence = new LogSequenceChecker(Arrays.asList("one", "three"));
+        LogLiteralsMatcher testee = new LogLiteralsMatcher(Collections.<LogLiteralsListener>singletonList(sequence));
+
+        testee.nextLine("three");
+        testee.nextLine("one");
+        assertFalse(sequence.check());
+        testee.nextLine("three");
+        assertTrue(sequence.check());
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    private static class RecordingListener implements LogLiteralsListener {
+
+        private final List<String> literals;
+        private final List<String> lines = new ArrayList<>();
+        private final List<BitSet> found = new ArrayList<>();
+
+        RecordingListener(String... literals) {
+            this.literals = Arrays.asList(literals);
+        }
+
+        @Override
+        public List<String> literals() {
+            return literals;
+        }
+
+        @Override
+        public void literalsFound(String line, BitSet found) {
+            lines.add(line);
+            this.found.add(found);
+        }
+    }
+
+}
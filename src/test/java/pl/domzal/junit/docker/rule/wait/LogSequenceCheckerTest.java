@@ -1,6 +1,7 @@
 package pl.domzal.junit.docker.rule.wait;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 
@@ -24,6 +25,19 @@ public class LogSequenceCheckerTest {
         assertTrue(testee.check());
     }
 
+    @Test
+    public void shouldNotifyWhenSequenceCompleted() {
+        Runnable changeListener = mock(Runnable.class);
+        LogSequenceChecker testee = new LogSequenceChecker(Arrays.asList("one", "three"));
+        testee.setChangeListener(changeListener);
+
+        testee.nextLine("one");
+        verify(changeListener, never()).run();
+        testee.nextLine("three");
+        testee.nextLine("three");
+        verify(changeListener, times(1)).run();
+    }
+
     @Test
     public void shouldDetectEmptySequence() {
         LogSequenceChecker testee = new LogSequenceChecker(Arrays.<String>asList());
@@ -1,8 +1,10 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.net.InetSocketAddress;
 import java.util.Arrays;
 
 import org.junit.Test;
@@ -26,4 +28,33 @@ public class TcpPortCheckerTest {
         TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(new Integer(11111)));
         assertFalse(testee.check());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldKeepOnlyNotOpenPortsPending() throws Exception {
+        HttpServer server = new HttpServer();
+        server.start();
+        try {
+            TcpPortChecker testee = new TcpPortChecker(server.getServerAddress(), Arrays.asList(new Integer(server.getPort()), new Integer(11111)));
+            assertFalse(testee.check());
+            assertEquals(Arrays.asList(new InetSocketAddress(server.getServerAddress(), 11111)), testee.getPending());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldCheckAllPortsAtOnce() throws Exception {
+        HttpServer first = new HttpServer();
+        HttpServer second = new HttpServer();
+        first.start();
+        second.start();
+        try {
+            TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(new Integer(first.getPort()), new Integer(second.getPort())));
+            assertTrue(testee.check());
+            assertTrue(testee.getPending().isEmpty());
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+}